@@ -1,5 +1,7 @@
 package com.extendedclip.deluxemenus;
 
+import com.extendedclip.deluxemenus.cache.PlaceholderCache;
+import com.extendedclip.deluxemenus.cache.RequirementCache;
 import com.extendedclip.deluxemenus.cache.SimpleCache;
 import com.extendedclip.deluxemenus.commands.DeluxeMenusCommands;
 import com.extendedclip.deluxemenus.config.DeluxeMenusConfig;
@@ -7,8 +9,12 @@ import com.extendedclip.deluxemenus.dupe.DupeFixer;
 import com.extendedclip.deluxemenus.dupe.MenuItemMarker;
 import com.extendedclip.deluxemenus.hooks.*;
 import com.extendedclip.deluxemenus.listener.PlayerListener;
+import com.extendedclip.deluxemenus.listener.RequirementCacheListener;
+import com.extendedclip.deluxemenus.menu.ClickThrottle;
 import com.extendedclip.deluxemenus.menu.options.HeadType;
 import com.extendedclip.deluxemenus.menu.Menu;
+import com.extendedclip.deluxemenus.menu.MenuRebinder;
+import com.extendedclip.deluxemenus.menu.MenuUpdateScheduler;
 import com.extendedclip.deluxemenus.metrics.Metrics;
 import com.extendedclip.deluxemenus.nbt.NbtProvider;
 import com.extendedclip.deluxemenus.persistentmeta.PersistentMetaHandler;
@@ -53,6 +59,11 @@ public class DeluxeMenus extends JavaPlugin {
   private PersistentMetaHandler persistentMetaHandler;
   private MenuItemMarker menuItemMarker;
   private DupeFixer dupeFixer;
+  private MenuUpdateScheduler menuUpdateScheduler;
+  private MenuRebinder menuRebinder;
+  private PlaceholderCache placeholderCache;
+  private RequirementCache requirementCache;
+  private ClickThrottle clickThrottle;
   private BukkitAudiences adventure;
 
   @Override
@@ -99,6 +110,11 @@ public class DeluxeMenus extends JavaPlugin {
 
     menuItemMarker = new MenuItemMarker(this);
     dupeFixer = new DupeFixer(this, menuItemMarker);
+    menuUpdateScheduler = new MenuUpdateScheduler(this);
+    menuRebinder = new MenuRebinder(this);
+    placeholderCache = new PlaceholderCache();
+    requirementCache = new RequirementCache();
+    clickThrottle = new ClickThrottle();
     try {
     this.adventure = BukkitAudiences.create(this);
     } catch (NoClassDefFoundError ignored) {}
@@ -126,6 +142,7 @@ public class DeluxeMenus extends JavaPlugin {
     menuConfig = new DeluxeMenusConfig(this);
     if (menuConfig.loadDefConfig()) {
       debugLevel(menuConfig.debugLevel());
+      menuConfig.loadPlaceholderCache(placeholderCache);
       checkUpdates = getConfig().getBoolean("check_updates");
       debug(
           DebugLevel.HIGHEST,
@@ -141,6 +158,7 @@ public class DeluxeMenus extends JavaPlugin {
     }
 
     new PlayerListener(this);
+    new RequirementCacheListener(this);
     new DeluxeMenusCommands(this);
     Bukkit.getMessenger().registerOutgoingPluginChannel(this, "BungeeCord");
 
@@ -179,8 +197,20 @@ public class DeluxeMenus extends JavaPlugin {
       this.adventure = null;
     }
 
+    if (menuRebinder != null) {
+      menuRebinder.stop();
+    }
+
     Menu.unloadForShutdown();
 
+    if (menuUpdateScheduler != null) {
+      menuUpdateScheduler.stop();
+    }
+
+    if (menuConfig != null) {
+      menuConfig.getMenuLoader().shutdown();
+    }
+
     itemHooks.clear();
 
     instance = null;
@@ -322,6 +352,26 @@ public class DeluxeMenus extends JavaPlugin {
     return menuItemMarker;
   }
 
+  public MenuUpdateScheduler getMenuUpdateScheduler() {
+    return menuUpdateScheduler;
+  }
+
+  public MenuRebinder getMenuRebinder() {
+    return menuRebinder;
+  }
+
+  public PlaceholderCache getPlaceholderCache() {
+    return placeholderCache;
+  }
+
+  public RequirementCache getRequirementCache() {
+    return requirementCache;
+  }
+
+  public ClickThrottle getClickThrottle() {
+    return clickThrottle;
+  }
+
   public DeluxeMenusConfig getConfiguration() {
     return menuConfig;
   }
@@ -347,5 +397,13 @@ public class DeluxeMenus extends JavaPlugin {
             .filter(hook -> hook instanceof SimpleCache)
             .map(hook -> (SimpleCache) hook)
             .forEach(SimpleCache::clearCache);
+
+    if (placeholderCache != null) {
+      placeholderCache.clearCache();
+    }
+
+    if (requirementCache != null) {
+      requirementCache.clearCache();
+    }
   }
 }
@@ -0,0 +1,95 @@
+package com.extendedclip.deluxemenus.action;
+
+import com.extendedclip.deluxemenus.DeluxeMenus;
+import com.extendedclip.deluxemenus.utils.DebugLevel;
+import com.google.common.primitives.Doubles;
+import com.google.common.primitives.Longs;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.logging.Level;
+
+/**
+ * Parses actions when a menu is loaded, so that executables without placeholders or arguments are parsed and
+ * validated once instead of on every click. Actions with placeholders or arguments are still parsed when they run.
+ */
+public final class ActionParser {
+
+    private ActionParser() {
+        throw new AssertionError("Util classes should not be initialized");
+    }
+
+    /**
+     * Turn an action into its typed form if its executable is known when the menu is loaded.
+     *
+     * @param action the action with its executable, delay and chance set
+     * @param path   the config path of the action, used when reporting errors
+     * @return the typed action, the action itself if there is nothing to parse ahead of time, or null if the action is
+     * not valid and should be skipped
+     */
+    @SuppressWarnings("UnstableApiUsage")
+    public static @Nullable ClickAction parse(final @NotNull ClickAction action, final @NotNull String path) {
+        final String delay = action.getUnparsedDelay();
+        if (delay != null && !delay.isEmpty() && !ClickAction.isDynamic(delay) && Longs.tryParse(delay) == null) {
+            warn(action, path, "Delay: " + delay + " is not a valid number, the action will run without a delay.");
+        }
+
+        final String chance = action.getChance();
+        if (chance != null && !ClickAction.isDynamic(chance) && Doubles.tryParse(chance) == null) {
+            warn(action, path, "Chance: " + chance + " is not a valid number, the action will never run.");
+        }
+
+        if (action.hasPlaceholders()) {
+            return action;
+        }
+
+        final ActionType type = action.getType();
+        final String executable = action.getExecutable();
+        final ClickAction parsed;
+        switch (type) {
+            case BROADCAST_SOUND:
+            case BROADCAST_WORLD_SOUND:
+            case PLAY_SOUND:
+                parsed = SoundAction.parse(type, executable);
+                break;
+
+            case OPEN_GUI_MENU:
+            case OPEN_MENU:
+                parsed = new OpenMenuAction(type, executable);
+                break;
+
+            case TAKE_MONEY:
+            case GIVE_MONEY:
+            case TAKE_EXP:
+            case GIVE_EXP:
+                parsed = AmountAction.parse(type, executable);
+                break;
+
+            case SET_ITEM:
+            case SET_NAME:
+            case SET_LORE:
+                parsed = SetItemAction.parse(type, executable);
+                break;
+
+            default:
+                return action;
+        }
+
+        if (parsed == null) {
+            warn(action, path, "The action is not valid and will be skipped.");
+            return null;
+        }
+
+        parsed.setDelay(delay);
+        parsed.setChance(chance);
+        return parsed;
+    }
+
+    private static void warn(final @NotNull ClickAction action, final @NotNull String path, final @NotNull String message) {
+        DeluxeMenus.debug(
+                DebugLevel.HIGHEST,
+                Level.WARNING,
+                "Action: " + action.getType().getIdentifier() + " " + action.getExecutable() + " at path: " + path + ". " + message
+        );
+    }
+}
@@ -0,0 +1,125 @@
+package com.extendedclip.deluxemenus.action;
+
+import com.extendedclip.deluxemenus.DeluxeMenus;
+import com.extendedclip.deluxemenus.menu.MenuHolder;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The actions of a click handler, compiled once when the menu is loaded.
+ * <br>
+ * When clicked, the actions run one after another in the same tick. The program only yields to the scheduler when an
+ * action has a {@code <delay=...>} that is not yet due, or after a {@code [cooldown]} action. Delays are counted from
+ * the click, so {@code <delay=20>} and {@code <delay=40>} run one second apart.
+ * <br>
+ * Other clicks on the menu are ignored while the actions of the click tick run and across a {@code [cooldown]}. Actions
+ * waiting for a delay do not block other clicks.
+ */
+public final class ActionProgram implements ClickHandler {
+
+    private static final LongAdder RUNS = new LongAdder();
+    private static final LongAdder ACTIONS = new LongAdder();
+    private static final LongAdder TASKS = new LongAdder();
+    private static final LongAdder LATENCY = new LongAdder();
+    private static final LongAccumulator PEAK_LATENCY = new LongAccumulator(Math::max, 0);
+
+    private final DeluxeMenus plugin;
+    private final List<ClickAction> actions;
+
+    public ActionProgram(final @NotNull DeluxeMenus plugin, final @NotNull List<ClickAction> actions) {
+        if (actions.isEmpty()) {
+            throw new IllegalArgumentException("An action program needs at least one action");
+        }
+
+        this.plugin = plugin;
+        this.actions = List.copyOf(actions);
+    }
+
+    @Override
+    public void onClick(final @NotNull MenuHolder holder) {
+        if (holder.isHold()) {
+            return;
+        }
+
+        final long delay = Math.max(0, actions.get(0).getDelay(holder));
+        // The holder ignores other clicks until the actions of this tick ran, or across a cooldown
+        final boolean holding = delay == 0;
+        if (holding) {
+            holder.setHold(true);
+        }
+        final ClickActionTask task = new ClickActionTask(
+                plugin,
+                0,
+                actions,
+                holder.getViewer().getUniqueId(),
+                holder.getTypedArgs(),
+                holder.parsePlaceholdersInArguments(),
+                holder.parsePlaceholdersAfterArguments(),
+                delay,
+                true,
+                System.nanoTime(),
+                holder,
+                holding
+        );
+
+        if (delay > 0) {
+            task.runTaskLater(plugin, delay);
+        } else {
+            task.runTask(plugin);
+        }
+    }
+
+    public @NotNull List<ClickAction> getActions() {
+        return actions;
+    }
+
+    static void recordTask(final int actions) {
+        TASKS.increment();
+        ACTIONS.add(actions);
+    }
+
+    static void recordRun(final long nanos) {
+        RUNS.increment();
+        LATENCY.add(nanos);
+        PEAK_LATENCY.accumulate(nanos);
+    }
+
+    /**
+     * @return the amount of click handlers that ran to their last action since the plugin was enabled
+     */
+    public static long getRunCount() {
+        return RUNS.sum();
+    }
+
+    /**
+     * @return the amount of actions run by click handlers since the plugin was enabled
+     */
+    public static long getActionCount() {
+        return ACTIONS.sum();
+    }
+
+    /**
+     * @return the amount of scheduler tasks click handlers used since the plugin was enabled
+     */
+    public static long getTaskCount() {
+        return TASKS.sum();
+    }
+
+    /**
+     * @return the average time in milliseconds from a click to the last action of its handler
+     */
+    public static double getAverageLatencyMillis() {
+        final long runs = RUNS.sum();
+        return runs == 0 ? 0 : LATENCY.sum() / 1_000_000D / runs;
+    }
+
+    /**
+     * @return the longest time in milliseconds from a click to the last action of its handler
+     */
+    public static double getPeakLatencyMillis() {
+        return PEAK_LATENCY.get() / 1_000_000D;
+    }
+}
@@ -0,0 +1,66 @@
+package com.extendedclip.deluxemenus.action;
+
+import com.extendedclip.deluxemenus.DeluxeMenus;
+import com.extendedclip.deluxemenus.utils.DebugLevel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.logging.Level;
+
+/**
+ * A money or exp action with its amount already parsed. Exp amounts are whole numbers and end with {@code l} when
+ * they are levels, the executable of an exp action is kept in lower case for {@link com.extendedclip.deluxemenus.utils.ExpUtils}.
+ */
+public final class AmountAction extends ClickAction {
+
+    private final double amount;
+
+    private AmountAction(final @NotNull ActionType type, final @NotNull String executable, final double amount) {
+        super(type, executable);
+        this.amount = amount;
+    }
+
+    /**
+     * Parse the executable of a money or exp action.
+     *
+     * @param type       the type of the action
+     * @param executable the executable without placeholders
+     * @return the parsed action, or null if the amount is not a valid number
+     */
+    public static @Nullable AmountAction parse(final @NotNull ActionType type, final @NotNull String executable) {
+        try {
+            switch (type) {
+                case TAKE_EXP:
+                case GIVE_EXP:
+                    final String lowerCaseExecutable = executable.toLowerCase();
+                    return new AmountAction(type, lowerCaseExecutable, Integer.parseInt(lowerCaseExecutable.replaceAll("l", "")));
+                default:
+                    return new AmountAction(type, executable, Double.parseDouble(executable));
+            }
+        } catch (final NumberFormatException exception) {
+            DeluxeMenus.debug(
+                    DebugLevel.HIGHEST,
+                    Level.WARNING,
+                    "Amount for " + describe(type) + " action: " + executable + ", is not a valid number!"
+            );
+            return null;
+        }
+    }
+
+    private static @NotNull String describe(final @NotNull ActionType type) {
+        switch (type) {
+            case TAKE_MONEY:
+                return "take money";
+            case GIVE_MONEY:
+                return "give money";
+            case TAKE_EXP:
+                return "take exp";
+            default:
+                return "give exp";
+        }
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+}
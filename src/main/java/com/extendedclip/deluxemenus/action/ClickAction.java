@@ -13,6 +13,10 @@ public class ClickAction {
   private String executable;
   private String delay;
   private String chance;
+  // Parsed when the delay or chance has no placeholders or arguments, so they are not resolved on every click
+  private Long parsedDelay;
+  private boolean constantChance;
+  private Double parsedChance;
 
   public ClickAction(@NotNull final ActionType type, @NotNull final String executable) {
     this.type = type;
@@ -58,6 +62,25 @@ public class ClickAction {
     this.executable = executable;
   }
 
+  /**
+   * Checks if the executable of this action has to be resolved before it is run.
+   *
+   * @return true if the executable contains placeholders or arguments, false if it is run as it is
+   */
+  public boolean hasPlaceholders() {
+    return isDynamic(executable);
+  }
+
+  /**
+   * Checks if a string may contain placeholders or arguments.
+   *
+   * @param string the string to check
+   * @return true if the string contains a '%' or a '{'
+   */
+  public static boolean isDynamic(@NotNull final String string) {
+    return string.indexOf('%') != -1 || string.indexOf('{') != -1;
+  }
+
   /**
    * Checks if this action has a delay. This does not check if the delay is valid or not!
    *
@@ -72,8 +95,27 @@ public class ClickAction {
    *
    * @param delay the delay to set
    */
+  @SuppressWarnings("UnstableApiUsage")
   public void setDelay(@Nullable final String delay) {
     this.delay = delay;
+
+    if (delay == null || delay.isEmpty()) {
+      this.parsedDelay = 0L;
+    } else if (isDynamic(delay)) {
+      this.parsedDelay = null;
+    } else {
+      final Long parsed = Longs.tryParse(delay);
+      this.parsedDelay = parsed == null ? 0L : parsed;
+    }
+  }
+
+  /**
+   * Get the unparsed delay of this action.
+   *
+   * @return the delay
+   */
+  public @Nullable String getUnparsedDelay() {
+    return delay;
   }
 
 
@@ -92,8 +134,11 @@ public class ClickAction {
    *
    * @param chance the chance to set
    */
+  @SuppressWarnings("UnstableApiUsage")
   public void setChance(@Nullable final String chance) {
     this.chance = chance;
+    this.constantChance = chance != null && !isDynamic(chance);
+    this.parsedChance = constantChance ? Doubles.tryParse(chance) : null;
   }
 
   /**
@@ -108,6 +153,10 @@ public class ClickAction {
       return 0;
     }
 
+    if (parsedDelay != null) {
+      return parsedDelay;
+    }
+
     final var parsed = Longs.tryParse(holder.setPlaceholdersAndArguments(delay));
     return parsed == null ? 0 : parsed;
   }
@@ -125,7 +174,9 @@ public class ClickAction {
       return true;
     }
 
-    final Double parsedChance = Doubles.tryParse(holder.setPlaceholdersAndArguments(this.chance));
+    final Double parsedChance = constantChance
+        ? this.parsedChance
+        : Doubles.tryParse(holder.setPlaceholdersAndArguments(this.chance));
     if (parsedChance == null) {
       return false;
     }
@@ -1,38 +1,44 @@
 package com.extendedclip.deluxemenus.action;
 
 import com.extendedclip.deluxemenus.DeluxeMenus;
+import com.extendedclip.deluxemenus.cache.RequirementCache;
+import com.extendedclip.deluxemenus.menu.ItemOverrides;
 import com.extendedclip.deluxemenus.menu.Menu;
 import com.extendedclip.deluxemenus.menu.MenuHolder;
-import com.extendedclip.deluxemenus.menu.MenuItem;
-import com.extendedclip.deluxemenus.menu.SetHolder;
 import com.extendedclip.deluxemenus.utils.*;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 import org.bukkit.Bukkit;
-import org.bukkit.Material;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
 import org.bukkit.event.player.PlayerCommandPreprocessEvent;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.logging.Level;
+import java.util.stream.Collectors;
 
 public class ClickActionTask extends BukkitRunnable {
 
     private final DeluxeMenus plugin;
     private final int index;
     private final List<ClickAction> actions;
-    private final ClickAction action;
     private final UUID uuid;
-    private final ActionType actionType;
-    private final String exec;
     // Ugly hack to get around the fact that arguments are not available at task execution time
     private final Map<String, String> arguments;
     private final boolean parsePlaceholdersInArguments;
     private final boolean parsePlaceholdersAfterArguments;
+    // Ticks passed since the click when this task runs, delays of actions are counted from the click
+    private final long elapsed;
+    // False if the first action may still have to wait for its delay, like after a cooldown
+    private final boolean delayed;
+    private final long started;
+    // The holder that was clicked. Null if the actions were not started by a click
+    private final MenuHolder origin;
+    // True while the clicked holder ignores other clicks. It is held across cooldowns, and released at the end of the
+    // actions or once they wait for a delay
+    private final boolean holding;
     private int cooldown = 0;
 
     public ClickActionTask(
@@ -43,56 +49,115 @@ public class ClickActionTask extends BukkitRunnable {
             @NotNull final Map<String, String> arguments,
             final boolean parsePlaceholdersInArguments,
             final boolean parsePlaceholdersAfterArguments
+    ) {
+        this(
+                plugin,
+                index,
+                actions,
+                uuid,
+                arguments,
+                parsePlaceholdersInArguments,
+                parsePlaceholdersAfterArguments,
+                0,
+                true,
+                System.nanoTime(),
+                null,
+                false
+        );
+    }
+
+    ClickActionTask(
+            @NotNull final DeluxeMenus plugin,
+            final int index,
+            @NotNull final List<ClickAction> actions,
+            @NotNull final UUID uuid,
+            @NotNull final Map<String, String> arguments,
+            final boolean parsePlaceholdersInArguments,
+            final boolean parsePlaceholdersAfterArguments,
+            final long elapsed,
+            final boolean delayed,
+            final long started,
+            @Nullable final MenuHolder origin,
+            final boolean holding
     ) {
         this.plugin = plugin;
         this.index = index;
         this.actions = actions;
-        this.action = actions.get(index);
         this.uuid = uuid;
-        this.actionType = action.getType();
-        this.exec = action.getExecutable();
         this.arguments = arguments;
         this.parsePlaceholdersInArguments = parsePlaceholdersInArguments;
         this.parsePlaceholdersAfterArguments = parsePlaceholdersAfterArguments;
+        this.elapsed = elapsed;
+        this.delayed = delayed;
+        this.started = started;
+        this.origin = origin;
+        this.holding = holding;
     }
 
     @Override
     public void run() {
         final Player player = Bukkit.getPlayer(this.uuid);
         if (player == null) {
+            finish(null);
             return;
         }
 
+        // Run every action that is due in this tick, only yield to the scheduler for a delay or a cooldown
+        for (int current = index; current < actions.size(); current++) {
+            final ClickAction action = actions.get(current);
+
+            if ((current > index || !delayed) && action.hasDelay()) {
+                final long wait = action.getDelay(Menu.getMenuHolder(player).orElse(new MenuHolder(player))) - elapsed;
+                if (wait > 0) {
+                    ActionProgram.recordTask(current - index);
+                    // Delayed actions run without holding the clicked holder, only cooldowns hold it
+                    release();
+                    continueLater(current, wait, true, false);
+                    return;
+                }
+            }
+
+            cooldown = 0;
+            try {
+                execute(player, action);
+            } catch (final RuntimeException exception) {
+                // Keep going, otherwise the clicked holder would never be released
+                DeluxeMenus.printStacktrace(
+                        "Error while running action " + action.getType().getIdentifier() + " " + action.getExecutable(),
+                        exception
+                );
+            }
+
+            if (cooldown > 0 && current + 1 < actions.size()) {
+                ActionProgram.recordTask(current + 1 - index);
+                continueLater(current + 1, cooldown, false, holding);
+                return;
+            }
+        }
+
+        ActionProgram.recordTask(actions.size() - index);
+        finish(player);
+    }
+
+    private void execute(@NotNull final Player player, @NotNull final ClickAction action) {
+        final ActionType actionType = action.getType();
         final Optional<MenuHolder> holder = Menu.getMenuHolder(player);
         final Player target = holder.isPresent() && holder.get().getPlaceholderPlayer() != null
                 ? holder.get().getPlaceholderPlayer()
                 : player;
 
-        if(holder.isPresent()) {
-            if (!action.checkChance(holder.get())) {
-                if (actions.size() > index + 1) {
-                    final ClickActionTask actionTask = new ClickActionTask(
-                            plugin,
-                            index + 1,
-                            actions,
-                            uuid,
-                            arguments,
-                            parsePlaceholdersInArguments,
-                            parsePlaceholdersAfterArguments
-                    );
-                    actionTask.runTask(plugin);
-                }
-                return;
-            }
+        if (holder.isPresent() && !action.checkChance(holder.get())) {
+            return;
         }
 
-
-        final String executable = StringUtils.replacePlaceholdersAndArguments(
-                this.exec,
-                this.arguments,
-                target,
-                this.parsePlaceholdersInArguments,
-                this.parsePlaceholdersAfterArguments);
+        final String executable = action.hasPlaceholders()
+                ? StringUtils.replacePlaceholdersAndArguments(
+                        action.getExecutable(),
+                        this.arguments,
+                        target,
+                        this.parsePlaceholdersInArguments,
+                        this.parsePlaceholdersAfterArguments)
+                : action.getExecutable();
 
         switch (actionType) {
             case META:
@@ -153,17 +218,12 @@ public class ClickActionTask extends BukkitRunnable {
 
             case OPEN_GUI_MENU:
             case OPEN_MENU:
-                final String temporaryExecutable = executable.replaceAll("\\s+", " ").replace("  ", " ");
-                final String[] executableParts = temporaryExecutable.split(" ", 2);
-
-                if (executableParts.length == 0) {
-                    DeluxeMenus.debug(DebugLevel.HIGHEST, Level.WARNING, "Could not find and open menu " + executable);
-                    break;
-                }
-
-                final String menuName = executableParts[0];
+                final OpenMenuAction openMenuAction = action instanceof OpenMenuAction
+                        ? (OpenMenuAction) action
+                        : new OpenMenuAction(actionType, executable);
+                final String menuName = openMenuAction.getMenuName();
 
-                final Optional<Menu> optionalMenuToOpen = Menu.getMenuByName(menuName);
+                final Optional<Menu> optionalMenuToOpen = openMenuAction.getMenu();
 
                 if (optionalMenuToOpen.isEmpty()) {
                     DeluxeMenus.debug(DebugLevel.HIGHEST, Level.WARNING, "Could not find and open menu " + executable);
@@ -174,10 +234,7 @@ public class ClickActionTask extends BukkitRunnable {
 
                 final List<String> menuArgumentNames = menuToOpen.options().arguments();
 
-                String[] passedArgumentValues = null;
-                if (executableParts.length > 1) {
-                    passedArgumentValues = executableParts[1].split(" ");
-                }
+                final String[] passedArgumentValues = openMenuAction.getArgumentValues();
 
                 if (menuArgumentNames.isEmpty()) {
                     if (passedArgumentValues != null && passedArgumentValues.length > 0) {
@@ -278,6 +335,7 @@ public class ClickActionTask extends BukkitRunnable {
                     break;
                 }
 
+                plugin.getRequirementCache().invalidate(player.getUniqueId());
                 holder.get().refreshMenu();
                 break;
 
@@ -287,14 +345,11 @@ public class ClickActionTask extends BukkitRunnable {
                     break;
                 }
 
-                try {
-                    DeluxeMenus.getInstance().getVault().takeMoney(player, Double.parseDouble(executable));
-                } catch (final NumberFormatException exception) {
-                    DeluxeMenus.debug(
-                            DebugLevel.HIGHEST,
-                            Level.WARNING,
-                            "Amount for take money action: " + executable + ", is not a valid number!"
-                    );
+                final AmountAction takeMoneyAction = action instanceof AmountAction
+                        ? (AmountAction) action
+                        : AmountAction.parse(actionType, executable);
+                if (takeMoneyAction != null) {
+                    DeluxeMenus.getInstance().getVault().takeMoney(player, takeMoneyAction.getAmount());
                 }
                 break;
 
@@ -304,50 +359,32 @@ public class ClickActionTask extends BukkitRunnable {
                     break;
                 }
 
-                try {
-                    DeluxeMenus.getInstance().getVault().giveMoney(player, Double.parseDouble(executable));
-                } catch (final NumberFormatException exception) {
-                    DeluxeMenus.debug(
-                            DebugLevel.HIGHEST,
-                            Level.WARNING,
-                            "Amount for give money action: " + executable + ", is not a valid number!"
-                    );
+                final AmountAction giveMoneyAction = action instanceof AmountAction
+                        ? (AmountAction) action
+                        : AmountAction.parse(actionType, executable);
+                if (giveMoneyAction != null) {
+                    DeluxeMenus.getInstance().getVault().giveMoney(player, giveMoneyAction.getAmount());
                 }
                 break;
 
             case TAKE_EXP:
             case GIVE_EXP:
-                final String lowerCaseExecutable = executable.toLowerCase();
-
-                try {
-                    if (Integer.parseInt(lowerCaseExecutable.replaceAll("l", "")) <= 0) break;
-
-                    if (actionType == ActionType.TAKE_EXP) {
-                        ExpUtils.setExp(player, "-" + lowerCaseExecutable);
-                        break;
-                    }
-
-                    ExpUtils.setExp(player, lowerCaseExecutable);
+                plugin.getRequirementCache().invalidate(player.getUniqueId(), RequirementCache.Dependency.EXPERIENCE);
+                final AmountAction expAction = action instanceof AmountAction
+                        ? (AmountAction) action
+                        : AmountAction.parse(actionType, executable);
+                if (expAction == null || expAction.getAmount() <= 0) {
                     break;
+                }
 
-                } catch (final NumberFormatException exception) {
-                    if (actionType == ActionType.TAKE_EXP) {
-                        DeluxeMenus.debug(
-                                DebugLevel.HIGHEST,
-                                Level.WARNING,
-                                "Amount for take exp action: " + executable + ", is not a valid number!"
-                        );
-                        break;
-                    }
-
-                    DeluxeMenus.debug(
-                            DebugLevel.HIGHEST,
-                            Level.WARNING,
-                            "Amount for give exp action: " + executable + ", is not a valid number!"
-                    );
+                if (actionType == ActionType.TAKE_EXP) {
+                    ExpUtils.setExp(player, "-" + expAction.getExecutable());
                     break;
                 }
 
+                ExpUtils.setExp(player, expAction.getExecutable());
+                break;
+
             case GIVE_PERM:
                 if (DeluxeMenus.getInstance().getVault() == null || !DeluxeMenus.getInstance().getVault().hooked()) {
                     DeluxeMenus.debug(
@@ -358,6 +395,7 @@ public class ClickActionTask extends BukkitRunnable {
                 }
 
                 DeluxeMenus.getInstance().getVault().givePermission(player, executable);
+                plugin.getRequirementCache().invalidate(player.getUniqueId(), RequirementCache.Dependency.PERMISSIONS);
                 break;
 
             case TAKE_PERM:
@@ -370,72 +408,23 @@ public class ClickActionTask extends BukkitRunnable {
                 }
 
                 DeluxeMenus.getInstance().getVault().takePermission(player, executable);
+                plugin.getRequirementCache().invalidate(player.getUniqueId(), RequirementCache.Dependency.PERMISSIONS);
                 break;
 
             case BROADCAST_SOUND:
             case BROADCAST_WORLD_SOUND:
             case PLAY_SOUND:
-                final Sound sound;
-                float volume = 1;
-                float pitch = 1;
-
-                if (!executable.contains(" ")) {
-                    try {
-                        sound = Sound.valueOf(executable.toUpperCase());
-                    } catch (final IllegalArgumentException exception) {
-                        DeluxeMenus.printStacktrace(
-                                "Sound name given for sound action: " + executable + ", is not a valid sound!",
-                                exception
-                        );
-                        break;
-                    }
-                } else {
-                    String[] parts = executable.split(" ", 3);
-
-                    try {
-                        sound = Sound.valueOf(parts[0].toUpperCase());
-                    } catch (final IllegalArgumentException exception) {
-                        DeluxeMenus.printStacktrace(
-                                "Sound name given for sound action: " + parts[0] + ", is not a valid sound!",
-                                exception
-                        );
-                        break;
-                    }
-
-                    if (parts.length == 3) {
-                        try {
-                            pitch = Float.parseFloat(parts[2]);
-                        } catch (final NumberFormatException exception) {
-                            DeluxeMenus.debug(
-                                    DebugLevel.HIGHEST,
-                                    Level.WARNING,
-                                    "Pitch given for sound action: " + parts[2] + ", is not a valid number!"
-                            );
-
-                            DeluxeMenus.printStacktrace(
-                                    "Pitch given for sound action: " + parts[2] + ", is not a valid number!",
-                                    exception
-                            );
-                        }
-                    }
-
-
-                    try {
-                        volume = Float.parseFloat(parts[1]);
-                    } catch (final NumberFormatException exception) {
-                        DeluxeMenus.debug(
-                                DebugLevel.HIGHEST,
-                                Level.WARNING,
-                                "Volume given for sound action: " + parts[1] + ", is not a valid number!"
-                        );
-
-                        DeluxeMenus.printStacktrace(
-                                "Volume given for sound action: " + parts[1] + ", is not a valid number!",
-                                exception
-                        );
-                    }
+                final SoundAction soundAction = action instanceof SoundAction
+                        ? (SoundAction) action
+                        : SoundAction.parse(actionType, executable);
+                if (soundAction == null) {
+                    break;
                 }
 
+                final Sound sound = soundAction.getSound();
+                final float volume = soundAction.getVolume();
+                final float pitch = soundAction.getPitch();
+
                 switch (actionType) {
                     case BROADCAST_SOUND:
                         for (final Player broadcastTarget : Bukkit.getOnlinePlayers()) {
@@ -474,124 +463,24 @@ public class ClickActionTask extends BukkitRunnable {
                 }
 
                 // 40 4 item
-                String[] args = executable.split(" ");
-                if (args.length >= 3) {
-                    int time = Integer.parseInt(args[0]);
-                    Integer slot = Integer.parseInt(args[1]);
-                    SetHolder setHolder = holder.get().getHoldItems();
-                    String object = org.apache.commons.lang3.StringUtils.join(args, " ", 2, args.length);
-
-                    MenuItem item = holder.get().getItem(slot);
-                    Object old = null;
-
-                    switch (actionType) {
-                        case SET_ITEM -> {
-                            if (!setHolder.material.contains(slot)) {
-                                ItemStack itemStack = item.getItemStack(holder.get());
-                                ItemMeta itemMeta = itemStack.getItemMeta();
-                                old = itemStack.getType();
-                                item.options().setMaterial(object);
-                                itemStack.setType(Material.valueOf(object.toUpperCase()));
-                                itemStack.setItemMeta(itemMeta);
-                            } else {
-                                next(holder.get());
-                                return;
-                            }
-                        }
-                        case SET_NAME -> {
-                            if (!setHolder.name.contains(slot)) {
-                                ItemStack itemStack = item.getItemStack(holder.get());
-                                ItemMeta itemMeta = itemStack.getItemMeta();
-
-                                old = item.options().displayName().orElse(null);
-                                item.options().setDisplayName(object);
-                                if (itemMeta != null) {
-                                    itemMeta.setDisplayName(object);
-                                    itemStack.setItemMeta(itemMeta);
-                                }
-                            } else {
-                                next(holder.get());
-                                return;
-                            }
-                        }
-                        case SET_LORE -> {
-                            if (!setHolder.lore.contains(slot)) {
-                                ItemStack itemStack = item.getItemStack(holder.get());
-                                ItemMeta itemMeta = itemStack.getItemMeta();
-
-                                old = item.options().lore();
-                                List<String> lore = Collections.singletonList(object);
-                                item.options().setLore(lore);
-                                if (itemMeta != null) {
-                                    itemMeta.setLore(lore);
-                                    itemStack.setItemMeta(itemMeta);
-                                }
-                            } else {
-                                next(holder.get());
-                                return;
-                            }
-                        }
-                    }
-
-                    holder.get().refreshMenu();
-                    Object finalOld = old;
-
-                    Runnable task = () -> {
-                        switch (actionType) {
-                            case SET_ITEM -> {
-                                ItemStack itemStack = item.getItemStack(holder.get());
-                                Material material = (Material) finalOld;
-                                if (material != null) {
-                                    item.options().setMaterial(material.name());
-                                    itemStack.setType(material);
-                                }
-                                setHolder.material.remove(slot);
-                            }
-                            case SET_NAME -> {
-                                ItemStack itemStack = item.getItemStack(holder.get());
-                                ItemMeta itemMeta = itemStack.getItemMeta();
-
-                                String name = (String) finalOld;
-                                item.options().setDisplayName(name);
-                                if (itemStack != null) {
-                                    itemMeta.setDisplayName(name);
-                                    itemStack.setItemMeta(itemMeta);
-                                }
-                                setHolder.name.remove(slot);
-                            }
-                            case SET_LORE -> {
-                                ItemStack itemStack = item.getItemStack(holder.get());
-                                ItemMeta itemMeta = itemStack.getItemMeta();
-
-                                List<String> lore = (List<String>) finalOld;
-                                item.options().setLore(lore);
-                                if (itemMeta != null) {
-                                    itemMeta.setLore(lore);
-                                    itemStack.setItemMeta(itemMeta);
-                                }
-                                setHolder.lore.remove(slot);
-                            }
-                        }
-                        holder.get().refreshMenu();
-                    };
-
-                    if (actionType == ActionType.SET_ITEM && !setHolder.material.contains(slot)) {
-                        setHolder.material.add(slot);
-                        Bukkit.getScheduler().runTaskLaterAsynchronously(DeluxeMenus.getInstance(), task, time);
-                    } else if (actionType == ActionType.SET_NAME && !setHolder.name.contains(slot)) {
-                        setHolder.name.add(slot);
-                        Bukkit.getScheduler().runTaskLaterAsynchronously(DeluxeMenus.getInstance(), task, time);
-                    } else if (actionType == ActionType.SET_LORE && !setHolder.lore.contains(slot)) {
-                        setHolder.lore.add(slot);
-                        Bukkit.getScheduler().runTaskLaterAsynchronously(DeluxeMenus.getInstance(), task, time);
-                    }
+                final SetItemAction setItemAction = action instanceof SetItemAction
+                        ? (SetItemAction) action
+                        : SetItemAction.parse(actionType, executable);
+                if (setItemAction == null || holder.get().getItem(setItemAction.getSlot()) == null) {
+                    break;
+                }
 
-                } else {
-                    DeluxeMenus.debug(
-                            DebugLevel.MEDIUM,
-                            Level.WARNING,
-                            player.getName() + " not enough arguments!"
-                    );
+                // The override only applies to this viewer, the options of the item are shared by every viewer
+                final ItemOverrides overrides = holder.get().getItemOverrides();
+                final int slot = setItemAction.getSlot();
+                final int ticks = setItemAction.getTicks();
+                final String value = setItemAction.getValue();
+                switch (actionType) {
+                    case SET_ITEM -> overrides.setMaterial(slot, setItemAction.getMaterial().name(), ticks);
+                    case SET_NAME -> overrides.setDisplayName(slot, StringUtils.color(value), ticks);
+                    case SET_LORE -> overrides.setLore(slot, Arrays.stream(value.split("\\\\n|\n"))
+                            .map(StringUtils::color)
+                            .collect(Collectors.toList()), ticks);
                 }
 
                 break;
@@ -601,24 +490,41 @@ public class ClickActionTask extends BukkitRunnable {
             default:
                 break;
         }
-        next(holder.orElse(new MenuHolder(player)));
     }
 
-    private void next(MenuHolder holder) {
-        if(actions.size() > index + 1) {
-            final ClickActionTask actionTask = new ClickActionTask(
-                    plugin,
-                    index + 1,
-                    actions,
-                    uuid,
-                    arguments,
-                    parsePlaceholdersInArguments,
-                    parsePlaceholdersAfterArguments
-            );
-            actionTask.runTaskLater(plugin, cooldown);
+    private void continueLater(final int next, final long ticks, final boolean delayed, final boolean holding) {
+        final ClickActionTask actionTask = new ClickActionTask(
+                plugin,
+                next,
+                actions,
+                uuid,
+                arguments,
+                parsePlaceholdersInArguments,
+                parsePlaceholdersAfterArguments,
+                elapsed + ticks,
+                delayed,
+                started,
+                origin,
+                holding
+        );
+        actionTask.runTaskLater(plugin, ticks);
+    }
+
+    private void release() {
+        if (origin != null && holding) {
+            origin.setHold(false);
+        }
+    }
+
+    private void finish(@Nullable final Player player) {
+        if (origin != null) {
+            release();
+            ActionProgram.recordRun(System.nanoTime() - started);
+            return;
         }
-        if(actions.size() <= index + 1) {
-            holder.setHold(false);
+
+        if (player != null) {
+            Menu.getMenuHolder(player).ifPresent(holder -> holder.setHold(false));
         }
     }
 
@@ -0,0 +1,62 @@
+package com.extendedclip.deluxemenus.action;
+
+import com.extendedclip.deluxemenus.menu.Menu;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Optional;
+
+/**
+ * An open menu action with the menu name and the arguments already split. Executable: {@code <menu> [arguments...]}.
+ * <br>
+ * The menu is looked up once and kept until menus are loaded or unloaded again.
+ */
+public final class OpenMenuAction extends ClickAction {
+
+    private final String menuName;
+    private final String[] argumentValues;
+    private volatile ResolvedMenu resolved;
+
+    public OpenMenuAction(final @NotNull ActionType type, final @NotNull String executable) {
+        super(type, executable);
+
+        final String[] executableParts = executable.replaceAll("\\s+", " ").split(" ", 2);
+        this.menuName = executableParts[0];
+        this.argumentValues = executableParts.length > 1 ? executableParts[1].split(" ") : null;
+    }
+
+    public @NotNull String getMenuName() {
+        return menuName;
+    }
+
+    /**
+     * @return the argument values given after the menu name, null if there are none
+     */
+    public @Nullable String[] getArgumentValues() {
+        return argumentValues;
+    }
+
+    /**
+     * @return the menu to open, empty if no menu with the name is loaded
+     */
+    public @NotNull Optional<Menu> getMenu() {
+        final long version = Menu.getRegistryVersion();
+        ResolvedMenu resolved = this.resolved;
+        if (resolved == null || resolved.version != version) {
+            resolved = new ResolvedMenu(Menu.getMenuByName(menuName).orElse(null), version);
+            this.resolved = resolved;
+        }
+        return Optional.ofNullable(resolved.menu);
+    }
+
+    private static final class ResolvedMenu {
+
+        private final Menu menu;
+        private final long version;
+
+        private ResolvedMenu(final @Nullable Menu menu, final long version) {
+            this.menu = menu;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.extendedclip.deluxemenus.action;
+
+import com.extendedclip.deluxemenus.DeluxeMenus;
+import com.extendedclip.deluxemenus.utils.DebugLevel;
+import org.bukkit.Material;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.logging.Level;
+
+/**
+ * A set item, set name or set lore action with its parts already parsed. Executable: {@code <ticks> <slot> <value>}.
+ */
+public final class SetItemAction extends ClickAction {
+
+    private final int ticks;
+    private final int slot;
+    private final String value;
+    private final Material material;
+
+    private SetItemAction(
+            final @NotNull ActionType type,
+            final @NotNull String executable,
+            final int ticks,
+            final int slot,
+            final @NotNull String value,
+            final @Nullable Material material
+    ) {
+        super(type, executable);
+        this.ticks = ticks;
+        this.slot = slot;
+        this.value = value;
+        this.material = material;
+    }
+
+    /**
+     * Parse the executable of a set item, set name or set lore action.
+     *
+     * @param type       the type of the action
+     * @param executable the executable without placeholders
+     * @return the parsed action, or null if the executable is not valid
+     */
+    public static @Nullable SetItemAction parse(final @NotNull ActionType type, final @NotNull String executable) {
+        final String[] args = executable.split(" ", 3);
+        if (args.length < 3) {
+            DeluxeMenus.debug(
+                    DebugLevel.MEDIUM,
+                    Level.WARNING,
+                    "Not enough arguments for action: " + type.getIdentifier() + " " + executable
+                            + ", expected <ticks> <slot> <value>!"
+            );
+            return null;
+        }
+
+        final int ticks;
+        final int slot;
+        try {
+            ticks = Integer.parseInt(args[0]);
+            slot = Integer.parseInt(args[1]);
+        } catch (final NumberFormatException exception) {
+            DeluxeMenus.debug(
+                    DebugLevel.HIGHEST,
+                    Level.WARNING,
+                    "Ticks and slot for action: " + type.getIdentifier() + " " + executable + ", are not valid numbers!"
+            );
+            return null;
+        }
+
+        Material material = null;
+        if (type == ActionType.SET_ITEM) {
+            material = Material.getMaterial(args[2].toUpperCase());
+            if (material == null) {
+                DeluxeMenus.debug(
+                        DebugLevel.HIGHEST,
+                        Level.WARNING,
+                        "Material for action: " + type.getIdentifier() + " " + executable + ", is not a valid material!"
+                );
+                return null;
+            }
+        }
+
+        return new SetItemAction(type, executable, ticks, slot, args[2], material);
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * @return the material, name or lore to set
+     */
+    public @NotNull String getValue() {
+        return value;
+    }
+
+    /**
+     * @return the material to set, null unless this is a set item action
+     */
+    public @Nullable Material getMaterial() {
+        return material;
+    }
+}
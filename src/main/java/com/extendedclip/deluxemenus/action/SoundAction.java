@@ -0,0 +1,95 @@
+package com.extendedclip.deluxemenus.action;
+
+import com.extendedclip.deluxemenus.DeluxeMenus;
+import com.extendedclip.deluxemenus.utils.DebugLevel;
+import org.bukkit.Sound;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.logging.Level;
+
+/**
+ * A sound action with its sound, volume and pitch already parsed. Executable: {@code <sound> [volume] [pitch]}.
+ */
+public final class SoundAction extends ClickAction {
+
+    private final Sound sound;
+    private final float volume;
+    private final float pitch;
+
+    private SoundAction(
+            final @NotNull ActionType type,
+            final @NotNull String executable,
+            final @NotNull Sound sound,
+            final float volume,
+            final float pitch
+    ) {
+        super(type, executable);
+        this.sound = sound;
+        this.volume = volume;
+        this.pitch = pitch;
+    }
+
+    /**
+     * Parse the executable of a sound action. Invalid volumes and pitches are reported and replaced by 1.
+     *
+     * @param type       the type of the action
+     * @param executable the executable without placeholders
+     * @return the parsed action, or null if the sound is not valid
+     */
+    public static @Nullable SoundAction parse(final @NotNull ActionType type, final @NotNull String executable) {
+        final String[] parts = executable.split(" ", 3);
+
+        final Sound sound;
+        try {
+            sound = Sound.valueOf(parts[0].toUpperCase());
+        } catch (final IllegalArgumentException exception) {
+            DeluxeMenus.printStacktrace(
+                    "Sound name given for sound action: " + parts[0] + ", is not a valid sound!",
+                    exception
+            );
+            return null;
+        }
+
+        float volume = 1;
+        float pitch = 1;
+        if (parts.length == 3) {
+            pitch = parseFloat("Pitch", parts[2]);
+        }
+        if (parts.length > 1) {
+            volume = parseFloat("Volume", parts[1]);
+        }
+
+        return new SoundAction(type, executable, sound, volume, pitch);
+    }
+
+    private static float parseFloat(final @NotNull String name, final @NotNull String value) {
+        try {
+            return Float.parseFloat(value);
+        } catch (final NumberFormatException exception) {
+            DeluxeMenus.debug(
+                    DebugLevel.HIGHEST,
+                    Level.WARNING,
+                    name + " given for sound action: " + value + ", is not a valid number!"
+            );
+
+            DeluxeMenus.printStacktrace(
+                    name + " given for sound action: " + value + ", is not a valid number!",
+                    exception
+            );
+            return 1;
+        }
+    }
+
+    public @NotNull Sound getSound() {
+        return sound;
+    }
+
+    public float getVolume() {
+        return volume;
+    }
+
+    public float getPitch() {
+        return pitch;
+    }
+}
@@ -0,0 +1,285 @@
+package com.extendedclip.deluxemenus.cache;
+
+import com.extendedclip.deluxemenus.utils.StringUtils;
+import me.clip.placeholderapi.PlaceholderAPI;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the values of slow changing placeholders for a configured amount of time, so that live updates and menu opens
+ * do not ask PlaceholderAPI for a rank or a leaderboard position every time.
+ * <br>
+ * Only placeholders matched by a {@link Rule} are cached. A rule is either scoped to the player the placeholder is
+ * resolved for, or global, in which case the first value resolved for any player is shared with everyone. The cache
+ * holds at most {@code maxSize} values and evicts the least recently used one when full.
+ */
+public final class PlaceholderCache implements SimpleCache {
+
+    // Upper bound of the placeholder to rule lookups remembered, placeholders can contain arguments
+    private static final int MAX_RULE_LOOKUPS = 4096;
+    private static final Rule NO_RULE = new Rule(Pattern.compile(""), 0, false);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final Map<String, Rule> ruleLookups = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<Key, Value> values = new LinkedHashMap<>(64, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, Value> eldest) {
+            if (size() <= maxSize) {
+                return false;
+            }
+
+            evicted.increment();
+            return true;
+        }
+    };
+
+    private volatile boolean enabled = false;
+    private volatile int maxSize = 10000;
+    private volatile List<Rule> rules = List.of();
+
+    /**
+     * Replace the rules of the cache and drop every cached value.
+     *
+     * @param enabled whether placeholders should be cached at all
+     * @param maxSize the maximum amount of values to keep
+     * @param rules   the rules deciding which placeholders are cached and for how long
+     */
+    public void configure(final boolean enabled, final int maxSize, final @NotNull List<Rule> rules) {
+        this.maxSize = Math.max(1, maxSize);
+        this.rules = List.copyOf(rules);
+        this.enabled = enabled && !rules.isEmpty();
+        clearCache();
+    }
+
+    /**
+     * Replace the placeholders in a string, using the cached value of every placeholder that matches a rule.
+     *
+     * @param input  the string to replace the placeholders in
+     * @param player the player to resolve the placeholders for
+     * @return the string with its placeholders replaced
+     */
+    public @NotNull String replacePlaceholders(final @NotNull String input, final @NotNull Player player) {
+        if (!enabled || input.indexOf('%') == -1) {
+            return PlaceholderAPI.setPlaceholders(player, input);
+        }
+
+        final String replaced = StringUtils.replaceEachPlaceholder(input, placeholder -> resolve(placeholder, player));
+        return replaced != null ? replaced : PlaceholderAPI.setPlaceholders(player, input);
+    }
+
+    private @NotNull String resolve(final @NotNull String placeholder, final @NotNull Player player) {
+        final Rule rule = getRule(placeholder);
+        if (rule == null) {
+            return PlaceholderAPI.setPlaceholders(player, placeholder);
+        }
+
+        final Key key = new Key(rule.global ? null : player.getUniqueId(), placeholder);
+        final long now = System.currentTimeMillis();
+
+        synchronized (lock) {
+            final Value value = values.get(key);
+            if (value != null) {
+                if (value.expiresAt > now) {
+                    hits.increment();
+                    return value.value;
+                }
+
+                values.remove(key);
+                expired.increment();
+            }
+        }
+
+        misses.increment();
+        final String resolved = PlaceholderAPI.setPlaceholders(player, placeholder);
+        synchronized (lock) {
+            values.put(key, new Value(resolved, now + rule.maxAge));
+        }
+        return resolved;
+    }
+
+    private @Nullable Rule getRule(final @NotNull String placeholder) {
+        Rule rule = ruleLookups.get(placeholder);
+        if (rule == null) {
+            rule = NO_RULE;
+            final String identifier = placeholder.substring(1, placeholder.length() - 1);
+            for (final Rule candidate : rules) {
+                if (candidate.pattern.matcher(identifier).matches()) {
+                    rule = candidate;
+                    break;
+                }
+            }
+
+            if (ruleLookups.size() >= MAX_RULE_LOOKUPS) {
+                ruleLookups.clear();
+            }
+            ruleLookups.put(placeholder, rule);
+        }
+
+        return rule == NO_RULE ? null : rule;
+    }
+
+    /**
+     * Drop every value cached for a player. Global values are kept.
+     *
+     * @param uuid the unique id of the player
+     */
+    public void invalidate(final @NotNull UUID uuid) {
+        synchronized (lock) {
+            values.keySet().removeIf(key -> uuid.equals(key.player));
+        }
+    }
+
+    @Override
+    public void clearCache() {
+        synchronized (lock) {
+            values.clear();
+        }
+        ruleLookups.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public @NotNull List<Rule> getRules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    public int getSize() {
+        synchronized (lock) {
+            return values.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    /**
+     * Decides which placeholders are cached, for how long and for whom.
+     */
+    public static final class Rule {
+
+        private final Pattern pattern;
+        private final long maxAge;
+        private final boolean global;
+
+        private Rule(final @NotNull Pattern pattern, final long maxAge, final boolean global) {
+            this.pattern = pattern;
+            this.maxAge = maxAge;
+            this.global = global;
+        }
+
+        /**
+         * Create a rule from placeholder globs like {@code %vault_eco_balance%} or {@code %vault_*%}. The surrounding
+         * percent signs are optional and {@code *} matches any amount of characters.
+         *
+         * @param globs  the placeholders matched by the rule
+         * @param maxAge the time in milliseconds a value is kept for
+         * @param global true if a value is shared by every player
+         * @return the rule
+         */
+        public static @NotNull Rule of(final @NotNull List<String> globs, final long maxAge, final boolean global) {
+            final List<String> regexes = new ArrayList<>();
+            for (String glob : globs) {
+                if (glob.length() > 1 && glob.startsWith("%") && glob.endsWith("%")) {
+                    glob = glob.substring(1, glob.length() - 1);
+                }
+
+                final StringBuilder regex = new StringBuilder();
+                int index = 0;
+                int star;
+                while ((star = glob.indexOf('*', index)) != -1) {
+                    regex.append(Pattern.quote(glob.substring(index, star))).append(".*");
+                    index = star + 1;
+                }
+                regexes.add(regex.append(Pattern.quote(glob.substring(index))).toString());
+            }
+
+            return new Rule(Pattern.compile(String.join("|", regexes), Pattern.CASE_INSENSITIVE), maxAge, global);
+        }
+
+        public long getMaxAge() {
+            return maxAge;
+        }
+
+        public boolean isGlobal() {
+            return global;
+        }
+    }
+
+    private static final class Key {
+
+        private final UUID player;
+        private final String placeholder;
+        private final int hash;
+
+        private Key(final @Nullable UUID player, final @NotNull String placeholder) {
+            this.player = player;
+            this.placeholder = placeholder;
+            this.hash = 31 * Objects.hashCode(player) + placeholder.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            final Key key = (Key) o;
+            return hash == key.hash && Objects.equals(player, key.player) && placeholder.equals(key.placeholder);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Value {
+
+        private final String value;
+        private final long expiresAt;
+
+        private Value(final @NotNull String value, final long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
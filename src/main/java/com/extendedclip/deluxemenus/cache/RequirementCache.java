@@ -0,0 +1,181 @@
+package com.extendedclip.deluxemenus.cache;
+
+import com.extendedclip.deluxemenus.menu.MenuHolder;
+import com.extendedclip.deluxemenus.requirement.Requirement;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the results of requirements that opted in to caching, per viewer, so that opening the same menu again or
+ * refreshing it does not check every permission or scan the whole inventory again.
+ * <br>
+ * A cached result is dropped once its time runs out, or earlier when something the requirement depends on changes.
+ * Every viewer has a counter per {@link Dependency} that is increased by the events changing it. A result is only used
+ * while the counter of its dependency still has the value it had when the result was computed.
+ */
+public final class RequirementCache implements SimpleCache {
+
+    /**
+     * The time in milliseconds a result is kept for when a requirement does not configure one.
+     */
+    public static final long DEFAULT_CACHE_TIME = 5000;
+
+    private static final Dependency[] DEPENDENCIES = Dependency.values();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Map<UUID, Viewer> viewers = new ConcurrentHashMap<>();
+
+    /**
+     * Evaluate a requirement for the viewer of a holder, using the cached result if it is still valid. Results are only
+     * cached when the menu is about its own viewer: a menu opened with another placeholder player is evaluated every time.
+     *
+     * @param requirement the requirement to evaluate
+     * @param holder      the holder to evaluate the requirement for
+     * @return the result of the requirement
+     */
+    public boolean evaluate(final @NotNull Requirement requirement, final @NotNull MenuHolder holder) {
+        final Player player = holder.getViewer();
+        if (player == null || requirement.getCacheTime() <= 0) {
+            return requirement.evaluate(holder);
+        }
+
+        // The result depends on the placeholder player as well, whose changes are not tracked for this viewer
+        final Player placeholderPlayer = holder.getPlaceholderPlayer();
+        if (placeholderPlayer != null && !placeholderPlayer.getUniqueId().equals(player.getUniqueId())) {
+            return requirement.evaluate(holder);
+        }
+
+        final Viewer viewer = viewers.computeIfAbsent(player.getUniqueId(), uuid -> new Viewer());
+        final long generation = viewer.generations.get(requirement.getDependency().ordinal());
+        final Map<String, String> arguments = holder.getTypedArgs();
+        final long now = System.currentTimeMillis();
+
+        final Result result = viewer.results.get(requirement);
+        if (result != null
+                && result.generation == generation
+                && result.expiresAt > now
+                && Objects.equals(result.arguments, arguments)) {
+            hits.increment();
+            return result.value;
+        }
+
+        misses.increment();
+        final boolean value = requirement.evaluate(holder);
+        final Map<String, String> copy = arguments == null ? null : new HashMap<>(arguments);
+        viewer.results.put(requirement, new Result(value, generation, now + requirement.getCacheTime(), copy));
+        return value;
+    }
+
+    /**
+     * Drop the cached results of a viewer that depend on something that changed.
+     *
+     * @param uuid       the unique id of the viewer
+     * @param dependency what changed
+     */
+    public void invalidate(final @NotNull UUID uuid, final @NotNull Dependency dependency) {
+        final Viewer viewer = viewers.get(uuid);
+        if (viewer != null) {
+            viewer.generations.incrementAndGet(dependency.ordinal());
+        }
+    }
+
+    /**
+     * Drop every cached result of a viewer.
+     *
+     * @param uuid the unique id of the viewer
+     */
+    public void invalidate(final @NotNull UUID uuid) {
+        final Viewer viewer = viewers.get(uuid);
+        if (viewer == null) {
+            return;
+        }
+
+        for (final Dependency dependency : DEPENDENCIES) {
+            viewer.generations.incrementAndGet(dependency.ordinal());
+        }
+    }
+
+    /**
+     * @param uuid the unique id of the viewer
+     * @return true if a requirement was cached for the viewer since they joined or the cache was cleared
+     */
+    public boolean hasViewer(final @NotNull UUID uuid) {
+        return viewers.containsKey(uuid);
+    }
+
+    /**
+     * Forget a viewer, for example when they leave.
+     *
+     * @param uuid the unique id of the viewer
+     */
+    public void remove(final @NotNull UUID uuid) {
+        viewers.remove(uuid);
+    }
+
+    @Override
+    public void clearCache() {
+        viewers.clear();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int getViewers() {
+        return viewers.size();
+    }
+
+    /**
+     * What the result of a requirement depends on, besides the time it was computed at.
+     */
+    public enum Dependency {
+        /**
+         * Only the time a result is cached for limits it.
+         */
+        NONE,
+        INVENTORY,
+        EXPERIENCE,
+        LOCATION,
+        PERMISSIONS
+    }
+
+    private static final class Viewer {
+
+        private final AtomicLongArray generations = new AtomicLongArray(DEPENDENCIES.length);
+        private final Map<Requirement, Result> results = new ConcurrentHashMap<>();
+    }
+
+    private static final class Result {
+
+        private final boolean value;
+        private final long generation;
+        private final long expiresAt;
+        private final Map<String, String> arguments;
+
+        private Result(
+                final boolean value,
+                final long generation,
+                final long expiresAt,
+                final @Nullable Map<String, String> arguments
+        ) {
+            this.value = value;
+            this.generation = generation;
+            this.expiresAt = expiresAt;
+            this.arguments = arguments;
+        }
+    }
+}
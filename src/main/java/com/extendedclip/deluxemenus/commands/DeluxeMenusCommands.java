@@ -1,19 +1,37 @@
 package com.extendedclip.deluxemenus.commands;
 
 import com.extendedclip.deluxemenus.DeluxeMenus;
+import com.extendedclip.deluxemenus.action.ActionProgram;
 import com.extendedclip.deluxemenus.action.ActionType;
 import com.extendedclip.deluxemenus.action.ClickAction;
 import com.extendedclip.deluxemenus.action.ClickActionTask;
+import com.extendedclip.deluxemenus.cache.PlaceholderCache;
 import com.extendedclip.deluxemenus.config.DeluxeMenusConfig;
+import com.extendedclip.deluxemenus.config.MenuLoader;
 import com.extendedclip.deluxemenus.menu.Menu;
+import com.extendedclip.deluxemenus.menu.MenuClickStats;
 import com.extendedclip.deluxemenus.menu.MenuHolder;
+import com.extendedclip.deluxemenus.menu.MenuItem;
+import com.extendedclip.deluxemenus.menu.MenuLayout;
+import com.extendedclip.deluxemenus.menu.MenuRenderStats;
+import com.extendedclip.deluxemenus.menu.MenuUpdateScheduler;
+import com.extendedclip.deluxemenus.menu.RenderScope;
+import com.extendedclip.deluxemenus.menu.options.MenuItemOptions;
+import com.extendedclip.deluxemenus.requirement.JavascriptEngine;
+import com.extendedclip.deluxemenus.requirement.Requirement;
+import com.extendedclip.deluxemenus.requirement.RequirementList;
+import com.extendedclip.deluxemenus.requirement.RequirementStats;
 import com.extendedclip.deluxemenus.utils.DumpUtils;
 import com.extendedclip.deluxemenus.utils.Messages;
 
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -120,6 +138,165 @@ public class DeluxeMenusCommands implements CommandExecutor {
                 plugin.sms(sender, Messages.DUMP_SUCCESS.message().append(link));
             });
 
+            return true;
+        } else if (args[0].equalsIgnoreCase("stats")) {
+            if (!sender.hasPermission("deluxemenus.admin")) {
+                plugin.sms(sender, Messages.NO_PERMISSION);
+                return true;
+            }
+
+            if (args.length > 1) {
+                final Optional<Menu> menu = Menu.getMenuByName(args[1]);
+
+                if (menu.isEmpty()) {
+                    plugin.sms(
+                            sender,
+                            Messages.INVALID_MENU.message().replaceText(MENU_REPLACER_BUILDER.replacement(args[1]).build())
+                    );
+                    return true;
+                }
+
+                final MenuRenderStats renderStats = menu.get().getRenderStats();
+                final MenuClickStats clickStats = menu.get().getClickStats();
+                plugin.sms(sender, Messages.STATS_HEADER);
+                plugin.sms(sender, statistic("Open menus", Menu.getMenuHolders(menu.get().options().name()).size()));
+                plugin.sms(sender, statistic("Slots written", renderStats.getWritten()));
+                plugin.sms(sender, statistic("Slots skipped", renderStats.getSkipped()));
+                plugin.sms(sender, statistic("Clicks handled", clickStats.getAllowed()));
+                plugin.sms(sender, statistic("Clicks throttled by delay", clickStats.getThrottledByDelay()));
+                plugin.sms(sender, statistic("Clicks throttled by rate limit", clickStats.getThrottledByBucket()));
+                return true;
+            }
+
+            final MenuUpdateScheduler scheduler = plugin.getMenuUpdateScheduler();
+            long written = 0;
+            long skipped = 0;
+            long throttled = 0;
+            for (Menu menu : Menu.getAllMenus()) {
+                written += menu.getRenderStats().getWritten();
+                skipped += menu.getRenderStats().getSkipped();
+                throttled += menu.getClickStats().getThrottledByDelay() + menu.getClickStats().getThrottledByBucket();
+            }
+
+            plugin.sms(sender, Messages.STATS_HEADER);
+            plugin.sms(sender, statistic("Open menus", Menu.getMenuHolders().size()));
+            plugin.sms(sender, statistic("Live updating menus", scheduler.getRegisteredCount()));
+            plugin.sms(sender, statistic("Live updates last tick", scheduler.getLastRefreshedCount()));
+            plugin.sms(sender, statistic("Live updates last second", scheduler.getRefreshedLastSecond()));
+            plugin.sms(sender, statistic("Peak live updates per tick", scheduler.getPeakRefreshedCount()));
+            plugin.sms(sender, statistic("Slots written", written));
+            plugin.sms(sender, statistic("Slots skipped", skipped));
+            plugin.sms(sender, statistic("Placeholders reused within a render", RenderScope.getHits()));
+            plugin.sms(sender, statistic("Placeholders resolved within a render", RenderScope.getMisses()));
+            plugin.sms(sender, statistic("JavaScript scripts compiled", JavascriptEngine.getCompilations()));
+            plugin.sms(sender, statistic("JavaScript evaluations", JavascriptEngine.getEvaluations()));
+            plugin.sms(sender, statistic("JavaScript evaluations with spliced values", JavascriptEngine.getSplicedEvaluations()));
+            plugin.sms(sender, statistic("Requirement results reused", plugin.getRequirementCache().getHits()));
+            plugin.sms(sender, statistic("Requirement results evaluated", plugin.getRequirementCache().getMisses()));
+            plugin.sms(sender, statistic("Click handlers run", ActionProgram.getRunCount()));
+            plugin.sms(sender, statistic("Click actions run", ActionProgram.getActionCount()));
+            plugin.sms(sender, statistic("Click action tasks scheduled", ActionProgram.getTaskCount()));
+            plugin.sms(sender, statistic("Average click latency", String.format("%.2fms", ActionProgram.getAverageLatencyMillis())));
+            plugin.sms(sender, statistic("Peak click latency", String.format("%.2fms", ActionProgram.getPeakLatencyMillis())));
+            plugin.sms(sender, statistic("Clicks throttled", throttled));
+            plugin.sms(sender, statistic("Open menus rebound after a reload", plugin.getMenuRebinder().getReboundCount()));
+            plugin.sms(sender, statistic("Open menus waiting to be rebound", plugin.getMenuRebinder().getPendingCount()));
+            return true;
+        } else if (args[0].equalsIgnoreCase("cache")) {
+            if (!sender.hasPermission("deluxemenus.admin")) {
+                plugin.sms(sender, Messages.NO_PERMISSION);
+                return true;
+            }
+
+            if (args.length < 2 || !args[1].equalsIgnoreCase("stats")) {
+                plugin.sms(sender, Messages.WRONG_USAGE_CACHE_COMMAND);
+                return true;
+            }
+
+            final PlaceholderCache cache = plugin.getPlaceholderCache();
+            plugin.sms(sender, Messages.CACHE_STATS_HEADER);
+            plugin.sms(sender, statistic("Enabled", cache.isEnabled()));
+            plugin.sms(sender, statistic("Rules", cache.getRules().size()));
+            plugin.sms(sender, statistic("Cached values", cache.getSize() + "/" + cache.getMaxSize()));
+            plugin.sms(sender, statistic("Hits", cache.getHits()));
+            plugin.sms(sender, statistic("Misses", cache.getMisses()));
+            plugin.sms(sender, statistic("Expired", cache.getExpired()));
+            plugin.sms(sender, statistic("Evicted", cache.getEvicted()));
+            return true;
+        } else if (args[0].equalsIgnoreCase("profile")) {
+            if (!sender.hasPermission("deluxemenus.admin")) {
+                plugin.sms(sender, Messages.NO_PERMISSION);
+                return true;
+            }
+
+            if (args.length < 2) {
+                plugin.sms(sender, Messages.WRONG_USAGE_PROFILE_COMMAND);
+                return true;
+            }
+
+            if (args[1].equalsIgnoreCase("--stop")) {
+                RequirementStats.setProfiling(false);
+                plugin.sms(sender, Messages.PROFILE_STOPPED);
+                return true;
+            }
+
+            final Optional<Menu> menu = Menu.getMenuByName(args[1]);
+            if (menu.isEmpty()) {
+                plugin.sms(
+                        sender,
+                        Messages.INVALID_MENU.message().replaceText(MENU_REPLACER_BUILDER.replacement(args[1]).build())
+                );
+                return true;
+            }
+
+            // Requirements are only timed while profiling, the first use of the command starts it
+            if (!RequirementStats.isProfiling()) {
+                RequirementStats.setProfiling(true);
+                plugin.sms(sender, Messages.PROFILE_STARTED.message().replaceText(MENU_REPLACER_BUILDER.replacement(args[1]).build()));
+                return true;
+            }
+
+            // Items placed in several slots share their requirement lists, only list them once
+            final Set<RequirementList> lists = new LinkedHashSet<>();
+            menu.get().options().openRequirements().ifPresent(lists::add);
+            lists.addAll(menu.get().options().argumentRequirements());
+
+            final MenuLayout layout = menu.get().getLayout();
+            for (int slot = 0; slot < layout.size(); slot++) {
+                for (MenuItem item : layout.getCandidates(slot)) {
+                    final MenuItemOptions options = item.options();
+                    options.viewRequirements().ifPresent(lists::add);
+                    options.clickRequirements().ifPresent(lists::add);
+                    options.leftClickRequirements().ifPresent(lists::add);
+                    options.rightClickRequirements().ifPresent(lists::add);
+                    options.shiftLeftClickRequirements().ifPresent(lists::add);
+                    options.shiftRightClickRequirements().ifPresent(lists::add);
+                    options.middleClickRequirements().ifPresent(lists::add);
+                }
+            }
+
+            plugin.sms(sender, Messages.PROFILE_HEADER.message().replaceText(MENU_REPLACER_BUILDER.replacement(args[1]).build()));
+            for (RequirementList list : lists) {
+                final Requirement[] order = list.getEvaluationOrder();
+                for (int i = 0; i < order.length; i++) {
+                    final Requirement requirement = order[i];
+                    final RequirementStats stats = requirement.getStats();
+                    final long evaluations = stats.getEvaluations();
+                    plugin.sms(sender, statistic(
+                            requirement.getPath() == null ? requirement.getClass().getSimpleName() : requirement.getPath(),
+                            String.format(
+                                    "%.1fµs avg, %d evaluations, %.1f%% failed, cost %d, evaluated %d of %d (configured %d)",
+                                    stats.getAverageNanos() / 1000D,
+                                    evaluations,
+                                    evaluations == 0 ? 0D : stats.getFailures() * 100D / evaluations,
+                                    requirement.getCost(),
+                                    i + 1,
+                                    order.length,
+                                    list.getRequirements().indexOf(requirement) + 1
+                            )
+                    ));
+                }
+            }
             return true;
         } else if (args[0].equalsIgnoreCase("execute")) {
             if (!sender.isOp()) {
@@ -218,7 +395,36 @@ public class DeluxeMenusCommands implements CommandExecutor {
                 return true;
             }
 
-            if (args.length > 1) {
+            final boolean dryRun = args.length > 1 && args[1].equalsIgnoreCase("--dry-run");
+            final boolean full = args.length > 1 && args[1].equalsIgnoreCase("--full");
+
+            if (dryRun) {
+                final CompletableFuture<MenuLoader.Result> preview = plugin.getConfiguration().previewGUIMenus();
+                if (preview == null) {
+                    plugin.sms(sender, Messages.RELOAD_FAIL);
+                    return true;
+                }
+
+                preview.whenComplete((result, throwable) -> {
+                    if (throwable != null) {
+                        DeluxeMenus.printStacktrace("Something went wrong while comparing menus", throwable);
+                        plugin.sms(sender, Messages.RELOAD_FAIL);
+                        return;
+                    }
+
+                    plugin.sms(sender, Messages.RELOAD_DRY_RUN_HEADER);
+                    sendReloadChanges(sender, result, true);
+                });
+                return true;
+            }
+
+            if (args.length > 1 && !full) {
+                // A full reload registers from what it compiled, so the menu must not change in the meantime
+                if (plugin.getConfiguration().isReloading()) {
+                    plugin.sms(sender, Messages.RELOAD_IN_PROGRESS);
+                    return true;
+                }
+
                 if (Menu.getMenuByName(args[1]).isEmpty()) {
                     plugin.sms(
                             sender,
@@ -228,9 +434,17 @@ public class DeluxeMenusCommands implements CommandExecutor {
                     return true;
                 }
 
-                Menu.unload(args[1]);
+                // The viewers of the menu are moved to the reloaded menu, or have it closed if it fails to load
+                final Menu previous = Menu.detach(args[1]);
+                plugin.getRequirementCache().clearCache();
+
+                final boolean reloaded = plugin.getConfiguration().loadGUIMenu(args[1]);
+                plugin.getMenuRebinder().setPerTick(plugin.getConfiguration().rebindsPerTick());
+                if (previous != null) {
+                    plugin.getMenuRebinder().rebind(previous);
+                }
 
-                if (plugin.getConfiguration().loadGUIMenu(args[1])) {
+                if (reloaded) {
                     plugin.sms(
                             sender,
                             Messages.MENU_RELOADED.message().replaceText(
@@ -249,29 +463,51 @@ public class DeluxeMenusCommands implements CommandExecutor {
 
             }
 
+            if (plugin.getConfiguration().isReloading()) {
+                plugin.sms(sender, Messages.RELOAD_IN_PROGRESS);
+                return true;
+            }
+
             plugin.clearCaches();
             plugin.reloadConfig();
             plugin.saveConfig();
             DeluxeMenus.debugLevel(plugin.getConfiguration().debugLevel());
-            Menu.unload();
-            plugin.getConfiguration().loadGUIMenus();
-            plugin.sms(sender, Messages.RELOAD_SUCCESS);
-
-            int gLoaded = Menu.getLoadedMenuSize();
+            plugin.getConfiguration().loadPlaceholderCache(plugin.getPlaceholderCache());
 
-            if (gLoaded == 1) {
-                plugin.sms(
-                        sender,
-                        Messages.MENU_LOADED.message().replaceText(
-                                AMOUNT_REPLACER_BUILDER.replacement(String.valueOf(gLoaded)).build())
-                );
-            } else {
-                plugin.sms(
-                        sender,
-                        Messages.MENUS_LOADED.message().replaceText(
-                                AMOUNT_REPLACER_BUILDER.replacement(String.valueOf(gLoaded)).build())
-                );
+            final CompletableFuture<MenuLoader.Result> reload = plugin.getConfiguration().reloadGUIMenus(full);
+            if (reload == null) {
+                plugin.sms(sender, Messages.RELOAD_IN_PROGRESS);
+                return true;
             }
+
+            reload.whenComplete((result, throwable) -> {
+                if (throwable != null) {
+                    DeluxeMenus.printStacktrace("Something went wrong while reloading menus", throwable);
+                    plugin.sms(sender, Messages.RELOAD_FAIL);
+                    return;
+                }
+
+                plugin.sms(sender, Messages.RELOAD_SUCCESS);
+
+                int gLoaded = Menu.getLoadedMenuSize();
+
+                if (gLoaded == 1) {
+                    plugin.sms(
+                            sender,
+                            Messages.MENU_LOADED.message().replaceText(
+                                    AMOUNT_REPLACER_BUILDER.replacement(String.valueOf(gLoaded)).build())
+                    );
+                } else {
+                    plugin.sms(
+                            sender,
+                            Messages.MENUS_LOADED.message().replaceText(
+                                    AMOUNT_REPLACER_BUILDER.replacement(String.valueOf(gLoaded)).build())
+                    );
+                }
+
+                sendReloadChanges(sender, result, false);
+                sendReloadTimings(sender, result);
+            });
             return true;
 
         } else if (args[0].equalsIgnoreCase("list")) {
@@ -470,4 +706,51 @@ public class DeluxeMenusCommands implements CommandExecutor {
         }
         return true;
     }
+
+    private void sendReloadChanges(final @NotNull CommandSender sender, final @NotNull MenuLoader.Result result,
+                                   final boolean dryRun) {
+        final List<String> added = result.getNames(MenuLoader.Status.ADDED);
+        final List<String> changed = result.getNames(MenuLoader.Status.CHANGED);
+        final List<String> unchanged = result.getNames(MenuLoader.Status.UNCHANGED);
+
+        if (!dryRun) {
+            plugin.sms(sender, statistic("Menus rebuilt", added.size() + changed.size()));
+            plugin.sms(sender, statistic("Menus left unchanged", unchanged.size()));
+            plugin.sms(sender, statistic("Menus unloaded", result.getRemoved().size()));
+            return;
+        }
+
+        if (result.isFull()) {
+            plugin.sms(sender, statistic("Rebuild every menu", "options shared by every menu changed"));
+        }
+        plugin.sms(sender, statistic("Add (" + added.size() + ")", String.join(", ", added)));
+        plugin.sms(sender, statistic("Rebuild (" + changed.size() + ")", String.join(", ", changed)));
+        plugin.sms(sender, statistic("Unload (" + result.getRemoved().size() + ")", String.join(", ", result.getRemoved())));
+        plugin.sms(sender, statistic("Leave unchanged (" + unchanged.size() + ")", String.join(", ", unchanged)));
+    }
+
+    private void sendReloadTimings(final @NotNull CommandSender sender, final @NotNull MenuLoader.Result result) {
+        plugin.sms(sender, statistic("Files parsed in", String.format("%.1fms", result.getParseMillis())));
+        plugin.sms(sender, statistic("Menus compiled in", String.format("%.1fms", result.getCompileMillis())));
+        plugin.sms(sender, statistic("Elapsed on " + plugin.getConfiguration().getMenuLoader().getParallelism() + " threads",
+                String.format("%.1fms", result.getElapsedMillis())));
+        plugin.sms(sender, statistic("Registered on the main thread in", String.format("%.1fms", result.getRegisterMillis())));
+
+        final List<MenuLoader.Entry> slowest = result.getSlowest(5);
+        if (slowest.isEmpty()) {
+            return;
+        }
+
+        plugin.sms(sender, Messages.RELOAD_TIMINGS_HEADER);
+        for (final MenuLoader.Entry entry : slowest) {
+            plugin.sms(sender, statistic(
+                    entry.getFile() == null ? entry.getName() : entry.getName() + " (" + entry.getFile() + ")",
+                    String.format("parsed in %.1fms, compiled in %.1fms", entry.getParseMillis(), entry.getCompileMillis())
+            ));
+        }
+    }
+
+    private @NotNull Component statistic(final @NotNull String name, final @NotNull Object value) {
+        return text(name + ": ", NamedTextColor.GRAY).append(text(String.valueOf(value), NamedTextColor.WHITE));
+    }
 }
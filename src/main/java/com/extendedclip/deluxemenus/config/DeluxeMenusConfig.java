@@ -1,19 +1,28 @@
 package com.extendedclip.deluxemenus.config;
 
 import com.extendedclip.deluxemenus.DeluxeMenus;
+import com.extendedclip.deluxemenus.action.ActionParser;
+import com.extendedclip.deluxemenus.action.ActionProgram;
 import com.extendedclip.deluxemenus.action.ActionType;
 import com.extendedclip.deluxemenus.action.ClickAction;
-import com.extendedclip.deluxemenus.action.ClickActionTask;
 import com.extendedclip.deluxemenus.action.ClickHandler;
+import com.extendedclip.deluxemenus.cache.PlaceholderCache;
+import com.extendedclip.deluxemenus.cache.RequirementCache;
 import com.extendedclip.deluxemenus.hooks.ItemHook;
 import com.extendedclip.deluxemenus.menu.LoreAppendMode;
 import com.extendedclip.deluxemenus.menu.Menu;
 import com.extendedclip.deluxemenus.menu.MenuItem;
+import com.extendedclip.deluxemenus.menu.MenuLayout;
+import com.extendedclip.deluxemenus.menu.MenuRebinder;
+import com.extendedclip.deluxemenus.menu.options.ClickThrottleOptions;
 import com.extendedclip.deluxemenus.menu.options.MenuItemOptions;
 import com.extendedclip.deluxemenus.menu.options.MenuOptions;
 import com.extendedclip.deluxemenus.requirement.*;
+import com.extendedclip.deluxemenus.requirement.expression.ExpressionException;
+import com.extendedclip.deluxemenus.requirement.expression.ExpressionParser;
 import com.extendedclip.deluxemenus.requirement.wrappers.ItemWrapper;
 import com.extendedclip.deluxemenus.utils.DebugLevel;
+import com.extendedclip.deluxemenus.utils.ItemUtils;
 import com.extendedclip.deluxemenus.utils.LocationUtils;
 import com.extendedclip.deluxemenus.utils.VersionHelper;
 
@@ -29,6 +38,7 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import com.google.common.base.Enums;
+import org.bukkit.Bukkit;
 import org.bukkit.DyeColor;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -38,11 +48,13 @@ import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.enchantments.Enchantment;
+import org.bukkit.event.inventory.ClickType;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.inventory.ItemFlag;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -54,6 +66,9 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.extendedclip.deluxemenus.utils.Constants.PLACEHOLDER_PREFIX;
 import static com.extendedclip.deluxemenus.utils.Constants.PLAYER_ITEMS;
@@ -105,6 +120,8 @@ public class DeluxeMenusConfig {
     private final String separator = File.separator;
     private final File menuDirectory;
     private final DeluxeMenus plugin;
+    private final MenuLoader menuLoader = new MenuLoader(this);
+    private final AtomicBoolean reloading = new AtomicBoolean();
 
     private final List<String> exampleMenus = Arrays.asList(
             "basics_menu",
@@ -151,6 +168,47 @@ public class DeluxeMenusConfig {
         return PLACEHOLDER_PATTERN.matcher(text).find();
     }
 
+    /**
+     * Check if an item renders the same for every viewer: a plain material, and no placeholders or arguments in any
+     * of the options that are resolved when the item is rendered.
+     *
+     * @param options the options of the item
+     * @return true if the item is static
+     */
+    private static boolean isStaticItem(final @NotNull MenuItemOptions options) {
+        final String material = options.material();
+        if (Material.getMaterial(material.toUpperCase(Locale.ROOT)) == null && !ItemUtils.isWaterBottle(material)) {
+            return false;
+        }
+
+        if (options.dynamicAmount().isPresent() || options.placeholderData().isPresent()) {
+            return false;
+        }
+
+        return isStaticText(options.displayName().orElse(null))
+                && options.lore().stream().allMatch(DeluxeMenusConfig::isStaticText)
+                && isStaticText(options.customModelData().orElse(null))
+                && isStaticText(options.rgb().orElse(null))
+                && isStaticText(options.trimMaterial().orElse(null))
+                && isStaticText(options.trimPattern().orElse(null))
+                && isStaticText(options.lightLevel().orElse(null))
+                && isStaticText(options.nbtString().orElse(null))
+                && isStaticText(options.nbtInt().orElse(null))
+                && options.nbtStrings().stream().allMatch(DeluxeMenusConfig::isStaticText)
+                && options.nbtInts().stream().allMatch(DeluxeMenusConfig::isStaticText);
+    }
+
+    /**
+     * Check if a config string renders the same for every viewer. This is deliberately broader than
+     * {@link #PLACEHOLDER_PATTERN} so that anything PlaceholderAPI or the menu arguments might replace counts as dynamic.
+     *
+     * @param text the text to check, may be null
+     * @return true if the text has no placeholders or arguments
+     */
+    public static boolean isStaticText(final @Nullable String text) {
+        return text == null || (text.indexOf('%') == -1 && text.indexOf('{') == -1);
+    }
+
     public boolean loadDefConfig() {
         if (checkConfig(null, "config.yml", true) == null) {
             return false;
@@ -164,10 +222,32 @@ public class DeluxeMenusConfig {
                 + "\nA full wiki on how to use this plugin can be found at:"
                 + "\nhttps://wiki.helpch.at/clips-plugins/deluxemenus"
                 + "\n"
+                + "\ntranslate_javascript_requirements evaluates javascript requirements that only use"
+                + "\nnumbers, strings, comparisons, boolean logic and ternaries natively instead of with Nashorn."
+                + "\n"
+                + "\nplaceholder_cache keeps the values of slow changing placeholders for max_age seconds."
+                + "\nEach rule lists placeholders, '*' matching any text, and a scope: 'player' caches a value"
+                + "\nper player, 'global' shares the first value resolved with every player."
+                + "\n"
+                + "\nreload_rebinds_per_tick is how many open menus are rendered again per tick after their menu"
+                + "\nwas reloaded. Open menus are kept open and moved to the reloaded menu a few at a time."
+                + "\n"
 
         );
         c.addDefault("debug", "HIGHEST");
         c.addDefault("check_updates", true);
+        c.addDefault("translate_javascript_requirements", true);
+        c.addDefault("reload_rebinds_per_tick", MenuRebinder.DEFAULT_PER_TICK);
+        c.addDefault("placeholder_cache.enabled", false);
+        c.addDefault("placeholder_cache.max_size", 10000);
+        if (!c.contains("placeholder_cache.rules")) {
+            c.set("placeholder_cache.rules.rank.placeholders", List.of("%vault_rank%", "%luckperms_primary_group_name%"));
+            c.set("placeholder_cache.rules.rank.max_age", 60);
+            c.set("placeholder_cache.rules.rank.scope", "player");
+            c.set("placeholder_cache.rules.server.placeholders", List.of("%server_online%"));
+            c.set("placeholder_cache.rules.server.max_age", 5);
+            c.set("placeholder_cache.rules.server.scope", "global");
+        }
         c.options().copyDefaults(true);
 
         if (!c.contains("gui_menus")) {
@@ -316,6 +396,8 @@ public class DeluxeMenusConfig {
             return false;
         }
 
+        menuLoader.forget(menu);
+
         if (c.contains("gui_menus." + menu + ".file")) {
             loadMenuFromFile(menu);
         } else {
@@ -325,42 +407,106 @@ public class DeluxeMenusConfig {
         return true;
     }
 
+    /**
+     * Load every menu of config.yml. The menus are compiled in parallel, this blocks until they are all compiled and
+     * registers them. Must be called on the main thread.
+     *
+     * @return the amount of loaded menus
+     */
     public int loadGUIMenus() {
+        final Set<String> keys = getMenuNames();
 
-        if (checkConfig(null, "config.yml", false) == null) {
+        if (keys.isEmpty()) {
             return 0;
         }
 
-        FileConfiguration c = plugin.getConfig();
+        menuLoader.register(menuLoader.compile(plugin.getConfig(), keys, MenuLoader.Mode.FULL).join());
+        return Menu.getLoadedMenuSize();
+    }
 
-        if (!c.contains("gui_menus")) {
-            return 0;
+    /**
+     * Load the menus of config.yml again. The menus whose source changed are compiled in parallel off the main thread
+     * while the current menus stay usable, then the changed and removed menus are unloaded and replaced on the main
+     * thread. Menus that did not change stay registered, and the viewers of changed menus are moved to the new menus
+     * without closing them.
+     * Must be called on the main thread.
+     *
+     * @param full true to compile and replace every menu, whether it changed or not
+     * @return the result of the load, completed on the main thread once the menus are replaced, or null if a reload is
+     * already running
+     */
+    public @Nullable CompletableFuture<MenuLoader.Result> reloadGUIMenus(final boolean full) {
+        if (!reloading.compareAndSet(false, true)) {
+            return null;
         }
 
-        if (!c.isConfigurationSection("gui_menus")) {
-            return 0;
+        final Set<String> keys = getMenuNames();
+        final Executor mainThread = task -> Bukkit.getScheduler().runTask(plugin, task);
+        return menuLoader.compile(plugin.getConfig(), keys, full ? MenuLoader.Mode.FULL : MenuLoader.Mode.CHANGED)
+                .thenApplyAsync(result -> {
+                    menuLoader.register(result);
+                    return result;
+                }, mainThread)
+                .whenComplete((result, throwable) -> reloading.set(false));
+    }
+
+    /**
+     * Find out which menus a reload would compile, unload and leave alone, without loading anything. config.yml is
+     * read from the disk, the loaded configuration is left as it is. Must be called on the main thread.
+     *
+     * @return the menus a reload would compile, completed on a loader thread, or null if config.yml is not valid
+     */
+    public @Nullable CompletableFuture<MenuLoader.Result> previewGUIMenus() {
+        final FileConfiguration c = checkConfig(null, "config.yml", false);
+        if (c == null) {
+            return null;
         }
 
-        Set<String> keys = c.getConfigurationSection("gui_menus").getKeys(false);
+        return menuLoader.compile(c, getMenuNames(c), MenuLoader.Mode.DRY_RUN);
+    }
 
-        if (keys.isEmpty()) {
-            return 0;
-        }
+    public boolean isReloading() {
+        return reloading.get();
+    }
 
-        for (String key : keys) {
+    public @NotNull MenuLoader getMenuLoader() {
+        return menuLoader;
+    }
 
-            if (c.contains("gui_menus." + key + ".file")) {
+    private @NotNull Set<String> getMenuNames() {
+        if (checkConfig(null, "config.yml", false) == null) {
+            return Collections.emptySet();
+        }
 
-                loadMenuFromFile(key);
+        return getMenuNames(plugin.getConfig());
+    }
 
-            } else {
-                loadMenu(c, key, true);
-            }
+    private @NotNull Set<String> getMenuNames(final @NotNull FileConfiguration c) {
+        if (!c.isConfigurationSection("gui_menus")) {
+            return Collections.emptySet();
         }
-        return Menu.getLoadedMenuSize();
+
+        return c.getConfigurationSection("gui_menus").getKeys(false);
     }
 
     public boolean loadMenuFromFile(String menuName) {
+        final FileConfiguration cfg = readMenuFile(menuName);
+        if (cfg == null) {
+            return false;
+        }
+
+        loadMenu(cfg, menuName, false);
+        return Menu.getMenuByName(menuName).isPresent();
+    }
+
+    /**
+     * Read the file of a menu that is loaded from the gui_menus directory, creating it from the default menu if it
+     * does not exist yet. Safe to call off the main thread.
+     *
+     * @param menuName the name of the menu
+     * @return the parsed file, or null if the file is not valid or is empty
+     */
+    public @Nullable FileConfiguration readMenuFile(String menuName) {
 
         String fileName = plugin.getConfig().getString("gui_menus." + menuName + ".file");
 
@@ -372,7 +518,7 @@ public class DeluxeMenusConfig {
                     "Make sure that the file name to load this menu from is specified as a .yml file!",
                     "Skipping loading of menu: " + menuName
             );
-            return false;
+            return null;
         }
 
         File f = new File(menuDirectory.getPath(), fileName);
@@ -396,7 +542,7 @@ public class DeluxeMenusConfig {
                             "Failed to create a default menu file for menu: " + menuName,
                             "Skipping loading menu: " + menuName
                     );
-                    return false;
+                    return null;
                 }
                 DeluxeMenus.debug(
                         DebugLevel.HIGHEST,
@@ -410,7 +556,7 @@ public class DeluxeMenusConfig {
                         "Could not create menu file: plugins" + separator + "DeluxeMenus" + separator + "gui_menus"
                                 + separator + fileName
                 );
-                return false;
+                return null;
             }
         }
 
@@ -422,7 +568,7 @@ public class DeluxeMenusConfig {
                     Level.WARNING,
                     "Menu: " + menuName + " in file: " + fileName + " not loaded."
             );
-            return false;
+            return null;
         }
 
         if (cfg.getKeys(false).isEmpty()) {
@@ -432,14 +578,29 @@ public class DeluxeMenusConfig {
                     "Menu config: " + f.getName() + " is empty! Creating default config example..."
             );
             saveResourceToFile("default_menu.yml", f);
-            return false;
+            return null;
         }
 
-        loadMenu(cfg, menuName, false);
-        return Menu.getMenuByName(menuName).isPresent();
+        return cfg;
     }
 
     public void loadMenu(FileConfiguration c, String key, boolean mainConfig) {
+        final LoadedMenu menu = compileMenu(c, key, mainConfig);
+        if (menu != null) {
+            registerMenu(menu);
+        }
+    }
+
+    /**
+     * Compile a menu from its configuration without registering it. This does not touch the menu registry, so it is
+     * safe to call off the main thread and for many menus at once. See {@link #registerMenu(LoadedMenu)}.
+     *
+     * @param c          the configuration the menu is defined in
+     * @param key        the name of the menu
+     * @param mainConfig true if the menu is defined in config.yml instead of its own file
+     * @return the compiled menu, or null if the menu is not valid
+     */
+    public @Nullable LoadedMenu compileMenu(FileConfiguration c, String key, boolean mainConfig) {
 
         if (mainConfig) {
             DeluxeMenus.debug(
@@ -465,7 +626,7 @@ public class DeluxeMenusConfig {
                     "Menu title for menu: " + key + " is not present!",
                     "Skipping menu: " + key
             );
-            return;
+            return null;
         }
 
         String title = null;
@@ -483,7 +644,7 @@ public class DeluxeMenusConfig {
                     "Menu title for menu: " + key + " is invalid!",
                     "Skipping menu: " + key
             );
-            return;
+            return null;
         }
 
         final MenuOptions.MenuOptionsBuilder builder = MenuOptions.builder(key, title);
@@ -508,6 +669,7 @@ public class DeluxeMenusConfig {
         builder.type(type);
 
         final List<String> openCommands = new ArrayList<>();
+        boolean singleCommand = false;
 
         if (c.contains(pre + "open_command")) {
             if (c.isString(pre + "open_command") && !c.getString(pre + "open_command").isEmpty()) {
@@ -521,36 +683,19 @@ public class DeluxeMenusConfig {
                             "open_command specified for menu: " + key + " is null!",
                             "Skipping menu: " + key
                     );
-                    return;
-                }
-
-                if (Menu.isMenuCommand(cmd)) {
-                    DeluxeMenus.debug(
-                            DebugLevel.HIGHEST,
-                            Level.SEVERE,
-                            "open_command specified for menu: " + key + " already exists for another menu!",
-                            "Skipping menu: " + key
-                    );
-                    return;
+                    return null;
                 }
 
+                // Commands taken by other menus are checked when the menu is registered
                 openCommands.add(cmd.toLowerCase());
+                singleCommand = true;
 
             } else if (c.isList(pre + "open_command") && !c.getStringList(pre + "open_command").isEmpty()) {
 
                 List<String> cmds = c.getStringList(pre + "open_command");
 
                 for (String cmd : cmds) {
-                    if (Menu.isMenuCommand(cmd)) {
-                        DeluxeMenus.debug(
-                                DebugLevel.HIGHEST,
-                                Level.WARNING,
-                                "command: " + cmd + " specified for menu: " + key + " already exists for another menu!",
-                                "Skipping command: " + cmd + " in menu: " + key
-                        );
-                    } else {
-                        openCommands.add(cmd.toLowerCase());
-                    }
+                    openCommands.add(cmd.toLowerCase());
                 }
             }
         }
@@ -668,27 +813,103 @@ public class DeluxeMenusConfig {
         final int updateInterval = c.getInt(pre + "update_interval", 10);
         builder.updateInterval(updateInterval > 0 ? updateInterval : 10);
 
-        Map<Integer, TreeMap<Integer, MenuItem>> items = loadMenuItems(c, key, mainConfig);
+        if (c.isConfigurationSection(pre + "click_throttle")) {
+            builder.clickThrottle(loadClickThrottle(c, pre + "click_throttle", key));
+        }
+
+        MenuLayout layout = loadMenuItems(c, key, mainConfig, size);
 
-        if (items == null || items.isEmpty()) {
+        if (layout == null || layout.isEmpty()) {
             DeluxeMenus.debug(
                     DebugLevel.HIGHEST,
                     Level.SEVERE,
                     "Failed to load menu items for menu: " + key,
                     "Skipping menu: " + key
             );
-            return;
+            return null;
         }
 
         builder.parsePlaceholdersInArguments(c.getBoolean(pre + "arguments_support_placeholders", false));
         builder.parsePlaceholdersAfterArguments(c.getBoolean(pre + "parse_placeholders_after_arguments", false));
 
+        return new LoadedMenu(builder.build(), layout, singleCommand);
+    }
+
+    /**
+     * Register a compiled menu, skipping the open commands that are already used by another menu. Must be called on the
+     * main thread.
+     *
+     * @param loaded the compiled menu
+     * @return the registered menu, or null if its open command is already used by another menu
+     */
+    public @Nullable Menu registerMenu(final @NotNull LoadedMenu loaded) {
+        MenuOptions options = loaded.getOptions();
+        final String key = options.name();
+        final List<String> openCommands = new ArrayList<>();
+
+        for (String cmd : options.commands()) {
+            if (!Menu.isMenuCommand(cmd)) {
+                openCommands.add(cmd);
+                continue;
+            }
+
+            if (loaded.hasSingleCommand()) {
+                DeluxeMenus.debug(
+                        DebugLevel.HIGHEST,
+                        Level.SEVERE,
+                        "open_command specified for menu: " + key + " already exists for another menu!",
+                        "Skipping menu: " + key
+                );
+                return null;
+            }
+
+            DeluxeMenus.debug(
+                    DebugLevel.HIGHEST,
+                    Level.WARNING,
+                    "command: " + cmd + " specified for menu: " + key + " already exists for another menu!",
+                    "Skipping command: " + cmd + " in menu: " + key
+            );
+        }
+
+        if (openCommands.size() != options.commands().size()) {
+            options = options.asBuilder()
+                    .commands(openCommands)
+                    .registerCommands(!openCommands.isEmpty() && options.registerCommands())
+                    .build();
+        }
+
         // Don't need to register the menu since it's done in the constructor
-        new Menu(builder.build(), items);
+        return new Menu(options, loaded.getLayout());
+    }
+
+
+    private @NotNull ClickThrottleOptions loadClickThrottle(final @NotNull FileConfiguration c, final @NotNull String path,
+                                                           final @NotNull String menuName) {
+        final ClickThrottleOptions.ClickThrottleOptionsBuilder builder = ClickThrottleOptions.builder()
+                .delay(c.getLong(path + ".delay", ClickThrottleOptions.DEFAULT_DELAY))
+                .burst(c.getInt(path + ".burst", 0))
+                .clicksPerSecond(c.getDouble(path + ".clicks_per_second", 0));
+
+        final ConfigurationSection clickTypes = c.getConfigurationSection(path + ".click_types");
+        if (clickTypes != null) {
+            for (final String clickType : clickTypes.getKeys(false)) {
+                try {
+                    builder.clickTypeDelay(ClickType.valueOf(clickType.toUpperCase(Locale.ROOT)), clickTypes.getLong(clickType));
+                } catch (final IllegalArgumentException exception) {
+                    DeluxeMenus.debug(
+                            DebugLevel.HIGHEST,
+                            Level.WARNING,
+                            "Click type: " + clickType + " in the click throttle of menu: " + menuName + " is not valid!",
+                            "Skipping click type: " + clickType
+                    );
+                }
+            }
+        }
+
+        return builder.build();
     }
 
-    private Map<Integer, TreeMap<Integer, MenuItem>> loadMenuItems(FileConfiguration c, String name,
-                                                                   boolean mainConfig) {
+    private MenuLayout loadMenuItems(FileConfiguration c, String name, boolean mainConfig, int size) {
         String itemsPath = "gui_menus." + name + ".items";
 
         if (!mainConfig) {
@@ -706,6 +927,8 @@ public class DeluxeMenusConfig {
         }
 
         Map<Integer, TreeMap<Integer, MenuItem>> menuItems = new HashMap<>();
+        int totalItems = 0;
+        int staticItems = 0;
 
         for (String key : itemKeys) {
 
@@ -1073,6 +1296,12 @@ public class DeluxeMenusConfig {
             }
 
             final MenuItem menuItem = new MenuItem(builder.build());
+            final boolean staticItem = isStaticItem(menuItem.options());
+
+            totalItems++;
+            if (staticItem) {
+                staticItems++;
+            }
 
             for (int slot : slots) {
                 TreeMap<Integer, MenuItem> slotPriorityMap;
@@ -1084,11 +1313,18 @@ public class DeluxeMenusConfig {
                 }
                 slotPriorityMap.put(
                         menuItem.options().priority(),
-                        new MenuItem(menuItem.options().asBuilder().slot(slot).build())
+                        new MenuItem(menuItem.options().asBuilder().slot(slot).staticItem(staticItem).build())
                 );
             }
         }
-        return menuItems;
+
+        DeluxeMenus.debug(
+                DebugLevel.LOW,
+                Level.INFO,
+                staticItems + " out of " + totalItems + " items in menu: " + name + " are static and will be pre-rendered."
+        );
+
+        return MenuLayout.compile(name, size, menuItems);
     }
 
     private RequirementList getRequirements(FileConfiguration c, String path) {
@@ -1226,7 +1462,20 @@ public class DeluxeMenusConfig {
                     break;
                 case JAVASCRIPT:
                     if (c.contains(rPath + ".expression")) {
-                        req = new JavascriptRequirement(c.getString(rPath + ".expression"));
+                        final String expression = c.getString(rPath + ".expression");
+                        if (plugin.getConfig().getBoolean("translate_javascript_requirements", true)) {
+                            req = ExpressionRequirement.fromJavascript(expression);
+                        }
+
+                        if (req != null) {
+                            DeluxeMenus.debug(
+                                    DebugLevel.LOWEST,
+                                    Level.INFO,
+                                    "Javascript requirement at path: " + rPath + " will be evaluated as a native expression."
+                            );
+                        } else {
+                            req = new JavascriptRequirement(expression);
+                        }
                     } else {
                         DeluxeMenus.debug(
                                 DebugLevel.HIGHEST,
@@ -1235,6 +1484,25 @@ public class DeluxeMenusConfig {
                         );
                     }
                     break;
+                case EXPRESSION:
+                    if (c.contains(rPath + ".expression")) {
+                        try {
+                            req = new ExpressionRequirement(ExpressionParser.parse(c.getString(rPath + ".expression")));
+                        } catch (final ExpressionException exception) {
+                            DeluxeMenus.debug(
+                                    DebugLevel.HIGHEST,
+                                    Level.WARNING,
+                                    "Expression requirement at path: " + rPath + " is invalid: " + exception.getMessage()
+                            );
+                        }
+                    } else {
+                        DeluxeMenus.debug(
+                                DebugLevel.HIGHEST,
+                                Level.WARNING,
+                                "Expression requirement at path: " + rPath + " does not contain an expression: entry"
+                        );
+                    }
+                    break;
                 case EQUAL_TO:
                 case NOT_EQUAL_TO:
                 case GREATER_THAN:
@@ -1402,6 +1670,15 @@ public class DeluxeMenusConfig {
                 req.setOptional(c.getBoolean(rPath + ".optional", false));
                 req.setSuccessHandler(requirementSuccessHandler);
                 req.setDenyHandler(requirementDenyHandler);
+                req.setPath(rPath);
+
+                // cache: true keeps the result for the default time, cache: <seconds> for the given time
+                if (c.isInt(rPath + ".cache")) {
+                    req.setCacheTime(Math.max(0, c.getInt(rPath + ".cache")) * 1000L);
+                } else if (c.getBoolean(rPath + ".cache", false)) {
+                    req.setCacheTime(RequirementCache.DEFAULT_CACHE_TIME);
+                }
+
                 requirements.add(req);
             }
         }
@@ -1479,33 +1756,18 @@ public class DeluxeMenusConfig {
             }
 
             action.setExecutable(command);
-            actions.add(action);
-        }
-
-        ClickHandler handler = null;
 
-        if (!actions.isEmpty()) {
+            final ClickAction parsed = ActionParser.parse(action, configPath);
+            if (parsed != null) {
+                actions.add(parsed);
+            }
+        }
 
-            handler = holder -> {
-                if(!actions.isEmpty()) {
-                    if(!holder.isHold()) {
-                        holder.setHold(true);
-                        final ClickActionTask actionTask = new ClickActionTask(
-                                plugin,
-                                0,
-                                actions,
-                                holder.getViewer().getUniqueId(),
-                                holder.getTypedArgs(),
-                                holder.parsePlaceholdersInArguments(),
-                                holder.parsePlaceholdersAfterArguments()
-                        );
-                        actionTask.runTask(plugin);
-                    }
-                }
-            };
+        if (actions.isEmpty()) {
+            return null;
         }
 
-        return handler;
+        return new ActionProgram(plugin, actions);
     }
 
     private void checkForDeprecatedItemOptions(ConfigurationSection config, String menuName) {
@@ -1548,6 +1810,74 @@ public class DeluxeMenusConfig {
         return debugLevel == null ? DebugLevel.LOW : debugLevel;
     }
 
+    /**
+     * @return the amount of open menus rendered again per tick after their menu was reloaded
+     */
+    public int rebindsPerTick() {
+        return plugin.getConfig().getInt("reload_rebinds_per_tick", MenuRebinder.DEFAULT_PER_TICK);
+    }
+
+    /**
+     * Configure the placeholder cache from the placeholder_cache section of config.yml.
+     *
+     * @param cache the cache to configure
+     */
+    public void loadPlaceholderCache(final @NotNull PlaceholderCache cache) {
+        final FileConfiguration c = plugin.getConfig();
+        final List<PlaceholderCache.Rule> rules = new ArrayList<>();
+        final ConfigurationSection section = c.getConfigurationSection("placeholder_cache.rules");
+
+        if (section != null) {
+            for (final String name : section.getKeys(false)) {
+                final String path = "placeholder_cache.rules." + name;
+                final List<String> placeholders = c.getStringList(path + ".placeholders");
+                if (placeholders.isEmpty()) {
+                    DeluxeMenus.debug(
+                            DebugLevel.HIGHEST,
+                            Level.WARNING,
+                            "Placeholder cache rule: " + name + " does not have any placeholders and will be skipped."
+                    );
+                    continue;
+                }
+
+                final double maxAge = c.getDouble(path + ".max_age", 0);
+                if (maxAge <= 0) {
+                    DeluxeMenus.debug(
+                            DebugLevel.HIGHEST,
+                            Level.WARNING,
+                            "Placeholder cache rule: " + name + " does not have a positive max_age and will be skipped."
+                    );
+                    continue;
+                }
+
+                final String scope = c.getString(path + ".scope", "player");
+                if (!scope.equalsIgnoreCase("player") && !scope.equalsIgnoreCase("global")) {
+                    DeluxeMenus.debug(
+                            DebugLevel.HIGHEST,
+                            Level.WARNING,
+                            "Placeholder cache rule: " + name + " has an invalid scope: " + scope + ". Using player instead."
+                    );
+                }
+
+                rules.add(PlaceholderCache.Rule.of(placeholders, (long) (maxAge * 1000), scope.equalsIgnoreCase("global")));
+            }
+        }
+
+        cache.configure(
+                c.getBoolean("placeholder_cache.enabled", false),
+                c.getInt("placeholder_cache.max_size", 10000),
+                rules
+        );
+
+        if (cache.isEnabled()) {
+            DeluxeMenus.debug(
+                    DebugLevel.LOW,
+                    Level.INFO,
+                    "Placeholder cache enabled with " + rules.size() + " rules."
+            );
+        }
+    }
+
     public File getMenuDirector() {
         return menuDirectory;
     }
@@ -0,0 +1,42 @@
+package com.extendedclip.deluxemenus.config;
+
+import com.extendedclip.deluxemenus.menu.MenuLayout;
+import com.extendedclip.deluxemenus.menu.options.MenuOptions;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A menu compiled from its configuration but not registered yet, see {@link DeluxeMenusConfig#compileMenu} and
+ * {@link DeluxeMenusConfig#registerMenu(LoadedMenu)}.
+ */
+public final class LoadedMenu {
+
+    private final MenuOptions options;
+    private final MenuLayout layout;
+    private final boolean singleCommand;
+
+    LoadedMenu(final @NotNull MenuOptions options, final @NotNull MenuLayout layout, final boolean singleCommand) {
+        this.options = options;
+        this.layout = layout;
+        this.singleCommand = singleCommand;
+    }
+
+    public @NotNull String getName() {
+        return options.name();
+    }
+
+    public @NotNull MenuOptions getOptions() {
+        return options;
+    }
+
+    public @NotNull MenuLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @return true if the open command was configured as a single string, in which case the menu is skipped when the
+     * command is already used by another menu. Commands configured as a list are skipped one by one instead.
+     */
+    public boolean hasSingleCommand() {
+        return singleCommand;
+    }
+}
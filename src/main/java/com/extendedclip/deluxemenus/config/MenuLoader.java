@@ -0,0 +1,478 @@
+package com.extendedclip.deluxemenus.config;
+
+import com.extendedclip.deluxemenus.DeluxeMenus;
+import com.extendedclip.deluxemenus.menu.Menu;
+import com.extendedclip.deluxemenus.menu.MenuRebinder;
+import com.extendedclip.deluxemenus.utils.DebugLevel;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+/**
+ * Loads menus in two steps. The menu files are parsed and the menus compiled in parallel on a small pool of threads,
+ * then the compiled menus are registered one after another, in the order of config.yml, on the main thread. Only the
+ * registration touches the menu registry and the server's command map.
+ * <br>
+ * The loader keeps a fingerprint of the source of every menu it registered: the section of the menu in config.yml,
+ * and the size, modification time and SHA-256 digest of its file. A reload only compiles the menus whose fingerprint
+ * changed, and only unloads those and the menus that were removed. The other menus are left registered as they are.
+ */
+public final class MenuLoader {
+
+    private static final int PARALLELISM = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private final DeluxeMenusConfig config;
+    private final ForkJoinPool pool;
+    // The fingerprints of the registered menus, only written on the main thread
+    private final Map<String, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+    // The main config options every menu depends on, only written on the main thread
+    private volatile String sharedOptions;
+
+    MenuLoader(final @NotNull DeluxeMenusConfig config) {
+        this.config = config;
+        this.pool = new ForkJoinPool(PARALLELISM, pool -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("DeluxeMenus Menu Loader #" + thread.getPoolIndex());
+            thread.setContextClassLoader(MenuLoader.class.getClassLoader());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Parse and compile the menus whose source changed since they were registered, on the loader threads.
+     *
+     * @param mainConfig the main configuration, listing the menus and their files
+     * @param names      the names of the menus to load, in the order they should be registered
+     * @param mode       whether to compile changed menus, every menu, or nothing at all
+     * @return the compiled menus, completed on a loader thread
+     */
+    public @NotNull CompletableFuture<Result> compile(final @NotNull FileConfiguration mainConfig,
+                                                      final @NotNull Collection<String> names,
+                                                      final @NotNull Mode mode) {
+        final long started = System.nanoTime();
+        final String options = getSharedOptions(mainConfig);
+        final boolean full = mode == Mode.FULL || !options.equals(sharedOptions);
+
+        final List<CompletableFuture<Entry>> entries = new ArrayList<>(names.size());
+        for (final String name : names) {
+            entries.add(CompletableFuture.supplyAsync(() -> compile(mainConfig, name, full, mode == Mode.DRY_RUN), pool));
+        }
+
+        // Menus that are not listed anymore are unloaded, including menus registered by other plugins
+        final Set<String> listed = new HashSet<>(names);
+        final List<String> removed = Menu.getAllMenus().stream()
+                .map(menu -> menu.options().name())
+                .filter(name -> !listed.contains(name))
+                .collect(Collectors.toList());
+
+        return CompletableFuture.allOf(entries.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> new Result(
+                        entries.stream().map(CompletableFuture::join).collect(Collectors.toList()),
+                        removed,
+                        options,
+                        full,
+                        mode == Mode.DRY_RUN,
+                        System.nanoTime() - started
+                ));
+    }
+
+    private @NotNull Entry compile(final @NotNull FileConfiguration mainConfig, final @NotNull String name,
+                                   final boolean full, final boolean dryRun) {
+        final String file = mainConfig.getString("gui_menus." + name + ".file");
+        final long started = System.nanoTime();
+
+        final Fingerprint previous = fingerprints.get(name);
+        Fingerprint fingerprint = fingerprint(mainConfig, name, file, previous);
+        final Status status;
+        if (previous == null || Menu.getMenuByName(name).isEmpty()) {
+            status = Status.ADDED;
+        } else if (full || !previous.equals(fingerprint)) {
+            status = Status.CHANGED;
+        } else {
+            status = Status.UNCHANGED;
+        }
+
+        if (dryRun || status == Status.UNCHANGED) {
+            return new Entry(name, file, status, null, fingerprint, false, System.nanoTime() - started, 0);
+        }
+
+        final FileConfiguration c = file == null ? mainConfig : config.readMenuFile(name);
+        final long parsed = System.nanoTime();
+        if (fingerprint == null && c != null) {
+            // The file did not exist yet and was just created from the default menu
+            fingerprint = fingerprint(mainConfig, name, file, null);
+        }
+
+        LoadedMenu menu = null;
+        if (c != null) {
+            try {
+                menu = config.compileMenu(c, name, file == null);
+            } catch (final Exception exception) {
+                DeluxeMenus.printStacktrace(
+                        "Something went wrong while loading menu: " + name,
+                        exception
+                );
+            }
+        }
+
+        return new Entry(name, file, status, menu, fingerprint, true, parsed - started, System.nanoTime() - parsed);
+    }
+
+    /**
+     * Replace the changed and removed menus with the compiled ones. The changed and removed menus are all unloaded
+     * first, so that a menu can take over an open command another menu just dropped. The menus of removed menus are
+     * closed, the viewers of changed menus are rebound to the new menus by the {@link MenuRebinder} without closing
+     * them. Must be called on the main thread.
+     *
+     * @param result the compiled menus
+     */
+    public void register(final @NotNull Result result) {
+        if (result.dryRun) {
+            throw new IllegalArgumentException("A dry run can not be registered");
+        }
+
+        final long started = System.nanoTime();
+        if (result.full) {
+            fingerprints.clear();
+        }
+
+        for (final String name : result.removed) {
+            Menu.unload(name);
+            fingerprints.remove(name);
+        }
+
+        final List<Menu> detached = new ArrayList<>();
+        for (final Entry entry : result.entries) {
+            if (entry.status != Status.UNCHANGED) {
+                final Menu previous = Menu.detach(entry.name);
+                if (previous != null) {
+                    detached.add(previous);
+                }
+                fingerprints.remove(entry.name);
+            }
+        }
+
+        for (final Entry entry : result.entries) {
+            if (entry.status == Status.UNCHANGED) {
+                entry.registered = true;
+                continue;
+            }
+
+            if (entry.menu != null && config.registerMenu(entry.menu) != null) {
+                entry.registered = true;
+                if (entry.fingerprint != null) {
+                    fingerprints.put(entry.name, entry.fingerprint);
+                }
+            }
+        }
+
+        final MenuRebinder rebinder = DeluxeMenus.getInstance().getMenuRebinder();
+        rebinder.setPerTick(config.rebindsPerTick());
+        for (final Menu previous : detached) {
+            rebinder.rebind(previous);
+        }
+
+        sharedOptions = result.sharedOptions;
+        result.registerNanos = System.nanoTime() - started;
+
+        for (final Entry entry : result.entries) {
+            if (entry.status == Status.UNCHANGED) {
+                continue;
+            }
+
+            DeluxeMenus.debug(
+                    DebugLevel.LOW,
+                    Level.INFO,
+                    String.format("Menu: %s%s parsed in %.1fms, compiled in %.1fms%s", entry.name,
+                            entry.file == null ? "" : " (" + entry.file + ")", entry.getParseMillis(),
+                            entry.getCompileMillis(), entry.registered ? "" : ", not loaded")
+            );
+        }
+    }
+
+    /**
+     * Forget the source of a menu, so that the next reload compiles it again. Used when a menu is loaded on its own.
+     *
+     * @param name the name of the menu
+     */
+    public void forget(final @NotNull String name) {
+        fingerprints.remove(name);
+    }
+
+    public int getParallelism() {
+        return PARALLELISM;
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private @Nullable Fingerprint fingerprint(final @NotNull FileConfiguration mainConfig, final @NotNull String name,
+                                              final @Nullable String fileName, final @Nullable Fingerprint previous) {
+        final ConfigurationSection section = mainConfig.getConfigurationSection("gui_menus." + name);
+        final String values = section == null ? "" : section.getValues(true).toString();
+        if (fileName == null) {
+            return new Fingerprint(values, -1, -1, null);
+        }
+
+        final File file = new File(config.getMenuDirector(), fileName);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        final long size = file.length();
+        final long modified = file.lastModified();
+        // A file with the same size and modification time is not read again
+        if (previous != null && previous.size == size && previous.modified == modified && previous.values.equals(values)) {
+            return previous;
+        }
+
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file.toPath()));
+            return new Fingerprint(values, size, modified, digest);
+        } catch (final IOException | NoSuchAlgorithmException exception) {
+            return null;
+        }
+    }
+
+    private static @NotNull String getSharedOptions(final @NotNull FileConfiguration mainConfig) {
+        return "translate_javascript_requirements=" + mainConfig.getBoolean("translate_javascript_requirements", true);
+    }
+
+    /**
+     * What a load does with the menus it is given.
+     */
+    public enum Mode {
+        /**
+         * Compile the menus that were added or changed since they were registered
+         */
+        CHANGED,
+        /**
+         * Compile every menu
+         */
+        FULL,
+        /**
+         * Only find out which menus were added, changed or removed, without compiling anything
+         */
+        DRY_RUN
+    }
+
+    /**
+     * How the source of a menu compares to the source it was registered with.
+     */
+    public enum Status {
+        ADDED,
+        CHANGED,
+        UNCHANGED
+    }
+
+    /**
+     * The source of a registered menu. A menu is compiled again when its fingerprint is not equal to the one it was
+     * registered with. The size and modification time of the file are not part of equality, only its digest is.
+     */
+    private static final class Fingerprint {
+        private final String values;
+        private final long size;
+        private final long modified;
+        private final byte[] digest;
+
+        private Fingerprint(final @NotNull String values, final long size, final long modified, final byte @Nullable [] digest) {
+            this.values = values;
+            this.size = size;
+            this.modified = modified;
+            this.digest = digest;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Fingerprint)) {
+                return false;
+            }
+            final Fingerprint other = (Fingerprint) o;
+            return values.equals(other.values) && Arrays.equals(digest, other.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(values, Arrays.hashCode(digest));
+        }
+    }
+
+    /**
+     * The menus of a single load, with the time spent on each.
+     */
+    public static final class Result {
+        private final List<Entry> entries;
+        private final List<String> removed;
+        private final String sharedOptions;
+        private final boolean full;
+        private final boolean dryRun;
+        private final long compileNanos;
+        private long registerNanos;
+
+        private Result(final @NotNull List<Entry> entries, final @NotNull List<String> removed,
+                       final @NotNull String sharedOptions, final boolean full, final boolean dryRun,
+                       final long compileNanos) {
+            this.entries = entries;
+            this.removed = removed;
+            this.sharedOptions = sharedOptions;
+            this.full = full;
+            this.dryRun = dryRun;
+            this.compileNanos = compileNanos;
+        }
+
+        public @NotNull List<Entry> getEntries() {
+            return entries;
+        }
+
+        /**
+         * @param status the status of the menus
+         * @return the names of the menus with the status, in load order
+         */
+        public @NotNull List<String> getNames(final @NotNull Status status) {
+            return entries.stream()
+                    .filter(entry -> entry.status == status)
+                    .map(Entry::getName)
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * @return the names of the registered menus that are not listed in config.yml anymore
+         */
+        public @NotNull List<String> getRemoved() {
+            return removed;
+        }
+
+        /**
+         * @return true if every menu was compiled, because it was asked for or because an option every menu depends on
+         * changed
+         */
+        public boolean isFull() {
+            return full;
+        }
+
+        /**
+         * @param amount the maximum amount of menus to return
+         * @return the compiled menus that took the longest to parse and compile, slowest first
+         */
+        public @NotNull List<Entry> getSlowest(final int amount) {
+            return entries.stream()
+                    .filter(entry -> entry.compiled)
+                    .sorted(Comparator.comparingLong(Entry::getNanos).reversed())
+                    .limit(amount)
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * @return the time spent parsing files, summed over every menu
+         */
+        public double getParseMillis() {
+            return entries.stream().mapToLong(entry -> entry.parseNanos).sum() / 1_000_000D;
+        }
+
+        /**
+         * @return the time spent compiling menus, summed over every menu
+         */
+        public double getCompileMillis() {
+            return entries.stream().mapToLong(entry -> entry.compileNanos).sum() / 1_000_000D;
+        }
+
+        /**
+         * @return the time from the start of the load until every menu was compiled
+         */
+        public double getElapsedMillis() {
+            return compileNanos / 1_000_000D;
+        }
+
+        /**
+         * @return the time spent on the main thread registering the menus
+         */
+        public double getRegisterMillis() {
+            return registerNanos / 1_000_000D;
+        }
+    }
+
+    /**
+     * A single menu of a load.
+     */
+    public static final class Entry {
+        private final String name;
+        private final String file;
+        private final Status status;
+        private final LoadedMenu menu;
+        private final Fingerprint fingerprint;
+        private final boolean compiled;
+        private final long parseNanos;
+        private final long compileNanos;
+        private boolean registered;
+
+        private Entry(final @NotNull String name, final @Nullable String file, final @NotNull Status status,
+                      final @Nullable LoadedMenu menu, final @Nullable Fingerprint fingerprint,
+                      final boolean compiled, final long parseNanos, final long compileNanos) {
+            this.name = name;
+            this.file = file;
+            this.status = status;
+            this.menu = menu;
+            this.fingerprint = fingerprint;
+            this.compiled = compiled;
+            this.parseNanos = parseNanos;
+            this.compileNanos = compileNanos;
+        }
+
+        public @NotNull String getName() {
+            return name;
+        }
+
+        /**
+         * @return the file of the menu, null if the menu is defined in config.yml
+         */
+        public @Nullable String getFile() {
+            return file;
+        }
+
+        public @NotNull Status getStatus() {
+            return status;
+        }
+
+        public boolean isRegistered() {
+            return registered;
+        }
+
+        public double getParseMillis() {
+            return parseNanos / 1_000_000D;
+        }
+
+        public double getCompileMillis() {
+            return compileNanos / 1_000_000D;
+        }
+
+        private long getNanos() {
+            return parseNanos + compileNanos;
+        }
+    }
+}
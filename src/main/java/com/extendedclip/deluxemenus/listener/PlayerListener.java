@@ -6,12 +6,8 @@ import com.extendedclip.deluxemenus.menu.Menu;
 import com.extendedclip.deluxemenus.menu.MenuHolder;
 import com.extendedclip.deluxemenus.menu.MenuItem;
 import com.extendedclip.deluxemenus.requirement.RequirementList;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 
 import java.util.Optional;
-import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -28,12 +24,6 @@ import org.jetbrains.annotations.NotNull;
 public class PlayerListener implements Listener {
 
   private final DeluxeMenus plugin;
-  private final Cache<UUID, Long> cache = CacheBuilder.newBuilder()
-      .expireAfterWrite(75, TimeUnit.MILLISECONDS).build();
-
-  // This is so dumb. Mojang fix your shit.
-  private final Cache<UUID, Long> shiftCache = CacheBuilder.newBuilder()
-      .expireAfterWrite(200, TimeUnit.MILLISECONDS).build();
 
   public PlayerListener(DeluxeMenus plugin) {
     this.plugin = plugin;
@@ -43,8 +33,13 @@ public class PlayerListener implements Listener {
   @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
   public void onCommandExecute(PlayerCommandPreprocessEvent event) {
 
-    final String cmd = event.getMessage().substring(1);
-    final Optional<Menu> optionalMenu = Menu.getMenuByCommand(cmd.toLowerCase());
+    final String message = event.getMessage();
+    final int labelEnd = message.indexOf(' ');
+    if (!Menu.isMenuCommandLabel(labelEnd == -1 ? message.substring(1) : message.substring(1, labelEnd))) {
+      return;
+    }
+
+    final Optional<Menu> optionalMenu = Menu.getMenuByCommand(message.substring(1));
 
     if (optionalMenu.isEmpty()) {
       return;
@@ -68,6 +63,9 @@ public class PlayerListener implements Listener {
     if (Menu.isInMenu(player)) {
       Menu.closeMenu(player, false);
     }
+
+    plugin.getPlaceholderCache().invalidate(player.getUniqueId());
+    plugin.getClickThrottle().remove(player.getUniqueId());
   }
 
   @EventHandler
@@ -122,7 +120,9 @@ public class PlayerListener implements Listener {
 
     final MenuHolder holder = optionalHolder.get();
 
-    if (holder.getMenu().isEmpty()) {
+    final Optional<Menu> menu = holder.getMenu();
+
+    if (menu.isEmpty()) {
       Menu.closeMenu(player, true);
     }
 
@@ -141,22 +141,14 @@ public class PlayerListener implements Listener {
       return;
     }
 
-    if (this.cache.getIfPresent(player.getUniqueId()) != null) {
+    if (event.getClick() == ClickType.DOUBLE_CLICK || menu.isEmpty()) {
       return;
     }
 
-    if (this.shiftCache.getIfPresent(player.getUniqueId()) != null) {
+    if (!plugin.getClickThrottle().tryClick(player.getUniqueId(), menu.get(), event.getClick())) {
       return;
     }
 
-    if (event.getClick() == ClickType.DOUBLE_CLICK) {
-      return;
-    }
-
-    if (event.getClick() == ClickType.SHIFT_LEFT) {
-      this.shiftCache.put(player.getUniqueId(), System.currentTimeMillis());
-    }
-
     if (handleClick(player, holder, item.options().clickHandler(),
             item.options().clickRequirements())) {
       return;
@@ -226,7 +218,7 @@ public class PlayerListener implements Listener {
       }
     }
 
-    this.cache.put(player.getUniqueId(), System.currentTimeMillis());
+    holder.getMenu().ifPresent(menu -> plugin.getClickThrottle().clicked(player.getUniqueId(), menu));
     handler.get().onClick(holder);
 
     return true;
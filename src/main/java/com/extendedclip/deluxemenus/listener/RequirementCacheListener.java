@@ -0,0 +1,153 @@
+package com.extendedclip.deluxemenus.listener;
+
+import com.extendedclip.deluxemenus.DeluxeMenus;
+import com.extendedclip.deluxemenus.cache.RequirementCache;
+import com.extendedclip.deluxemenus.cache.RequirementCache.Dependency;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerExpChangeEvent;
+import org.bukkit.event.player.PlayerItemBreakEvent;
+import org.bukkit.event.player.PlayerItemConsumeEvent;
+import org.bukkit.event.player.PlayerLevelChangeEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerSwapHandItemsEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+
+import java.util.UUID;
+
+/**
+ * Drops cached requirement results when something they depend on changes.
+ */
+public class RequirementCacheListener implements Listener {
+
+  private final DeluxeMenus plugin;
+  private final RequirementCache cache;
+
+  public RequirementCacheListener(DeluxeMenus plugin) {
+    this.plugin = plugin;
+    this.cache = plugin.getRequirementCache();
+    Bukkit.getPluginManager().registerEvents(this, plugin);
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onInventoryClick(InventoryClickEvent event) {
+    invalidateAfterChange(event.getWhoClicked(), Dependency.INVENTORY);
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onInventoryDrag(InventoryDragEvent event) {
+    invalidateAfterChange(event.getWhoClicked(), Dependency.INVENTORY);
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onPickup(EntityPickupItemEvent event) {
+    if (event.getEntity() instanceof Player) {
+      invalidateAfterChange((Player) event.getEntity(), Dependency.INVENTORY);
+    }
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onDrop(PlayerDropItemEvent event) {
+    invalidate(event.getPlayer(), Dependency.INVENTORY);
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onConsume(PlayerItemConsumeEvent event) {
+    invalidateAfterChange(event.getPlayer(), Dependency.INVENTORY);
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onItemBreak(PlayerItemBreakEvent event) {
+    invalidate(event.getPlayer(), Dependency.INVENTORY);
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onSwapHands(PlayerSwapHandItemsEvent event) {
+    invalidateAfterChange(event.getPlayer(), Dependency.INVENTORY);
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockPlace(BlockPlaceEvent event) {
+    invalidateAfterChange(event.getPlayer(), Dependency.INVENTORY);
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onExpChange(PlayerExpChangeEvent event) {
+    invalidateAfterChange(event.getPlayer(), Dependency.EXPERIENCE);
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onLevelChange(PlayerLevelChangeEvent event) {
+    invalidate(event.getPlayer(), Dependency.EXPERIENCE);
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onMove(PlayerMoveEvent event) {
+    // Distances are checked against whole blocks, looking around does not change anything
+    final Location from = event.getFrom();
+    final Location to = event.getTo();
+    if (from.getBlockX() != to.getBlockX() || from.getBlockY() != to.getBlockY() || from.getBlockZ() != to.getBlockZ()) {
+      invalidate(event.getPlayer(), Dependency.LOCATION);
+    }
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onTeleport(PlayerTeleportEvent event) {
+    invalidate(event.getPlayer(), Dependency.LOCATION);
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onWorldChange(PlayerChangedWorldEvent event) {
+    // Permissions can be given per world
+    invalidate(event.getPlayer(), Dependency.LOCATION);
+    invalidate(event.getPlayer(), Dependency.PERMISSIONS);
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onDeath(PlayerDeathEvent event) {
+    cache.invalidate(event.getEntity().getUniqueId());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onRespawn(PlayerRespawnEvent event) {
+    cache.invalidate(event.getPlayer().getUniqueId());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onQuit(PlayerQuitEvent event) {
+    cache.remove(event.getPlayer().getUniqueId());
+  }
+
+  private void invalidate(HumanEntity player, Dependency dependency) {
+    cache.invalidate(player.getUniqueId(), dependency);
+  }
+
+  /**
+   * For events fired before the change they announce is applied. A render resolving in the same tick could still cache
+   * a result computed from the old state, so the results are dropped again on the next tick, once the change is done.
+   * Nothing is scheduled for players without cached results.
+   */
+  private void invalidateAfterChange(HumanEntity player, Dependency dependency) {
+    final UUID uuid = player.getUniqueId();
+    if (!cache.hasViewer(uuid)) {
+      return;
+    }
+
+    cache.invalidate(uuid, dependency);
+    Bukkit.getScheduler().runTask(plugin, () -> cache.invalidate(uuid, dependency));
+  }
+}
@@ -0,0 +1,102 @@
+package com.extendedclip.deluxemenus.menu;
+
+import com.extendedclip.deluxemenus.menu.options.ClickThrottleOptions;
+import org.bukkit.event.inventory.ClickType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Ignores clicks on menu items that come too soon after a previous click of the same player, using the
+ * {@link ClickThrottleOptions} of the clicked menu.
+ * <br>
+ * The state of a player is a deadline until which clicks are ignored, plus a token bucket when the menu limits the
+ * clicks per second. The state is kept across menus, so the second half of a double click does not click the menu the
+ * first half opened. Clicks are handled on the main thread, so the table is only accessed from there and needs no
+ * locking or expiry: the entry of a player is removed when they leave.
+ */
+public final class ClickThrottle {
+
+    private final Map<UUID, Session> sessions = new HashMap<>();
+
+    /**
+     * Check if a click is let through, and count it for the menu. A click of a type with a delay ignores the clicks
+     * after it, whether it runs any actions or not.
+     *
+     * @param uuid      the player who clicked
+     * @param menu      the clicked menu
+     * @param clickType the type of the click
+     * @return true if the click should be handled, false if it should be ignored
+     */
+    public boolean tryClick(final @NotNull UUID uuid, final @NotNull Menu menu, final @NotNull ClickType clickType) {
+        final ClickThrottleOptions options = menu.options().clickThrottle();
+        final Session session = sessions.computeIfAbsent(uuid, key -> new Session());
+        final long now = System.nanoTime();
+
+        if (now - session.blockedUntil < 0) {
+            menu.getClickStats().recordThrottled(false);
+            return false;
+        }
+
+        if (options.hasBucket() && !session.takeToken(options, now)) {
+            menu.getClickStats().recordThrottled(true);
+            return false;
+        }
+
+        final long delay = options.delayNanos(clickType);
+        if (delay > 0) {
+            session.block(now + delay);
+        }
+
+        menu.getClickStats().recordAllowed();
+        return true;
+    }
+
+    /**
+     * Ignore the clicks of a player for the delay of the menu, after one of their clicks ran its actions.
+     *
+     * @param uuid the player who clicked
+     * @param menu the clicked menu
+     */
+    public void clicked(final @NotNull UUID uuid, final @NotNull Menu menu) {
+        final long delay = menu.options().clickThrottle().delayNanos();
+        if (delay > 0) {
+            sessions.computeIfAbsent(uuid, key -> new Session()).block(System.nanoTime() + delay);
+        }
+    }
+
+    public void remove(final @NotNull UUID uuid) {
+        sessions.remove(uuid);
+    }
+
+    private static final class Session {
+        private long blockedUntil = System.nanoTime();
+        private double tokens = Double.NaN;
+        private long refilledAt;
+
+        private void block(final long until) {
+            if (until - blockedUntil > 0) {
+                blockedUntil = until;
+            }
+        }
+
+        private boolean takeToken(final @NotNull ClickThrottleOptions options, final long now) {
+            final int burst = options.burst();
+            if (Double.isNaN(tokens)) {
+                tokens = burst;
+            } else {
+                tokens = Math.min(burst, tokens + (now - refilledAt) / 1_000_000_000D * options.clicksPerSecond());
+            }
+            refilledAt = now;
+
+            if (tokens < 1) {
+                return false;
+            }
+
+            tokens--;
+            return true;
+        }
+    }
+}
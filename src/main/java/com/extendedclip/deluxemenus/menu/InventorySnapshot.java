@@ -0,0 +1,184 @@
+package com.extendedclip.deluxemenus.menu;
+
+import com.extendedclip.deluxemenus.utils.StringUtils;
+import com.extendedclip.deluxemenus.utils.VersionHelper;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The items of a player's inventory, read once and grouped by material, so that every item requirement of a render
+ * pass only looks at the stacks of its own material. The meta of a stack is only read when a requirement needs it, and
+ * then only once.
+ * <br>
+ * A snapshot is shared through the {@link RenderScope} of a pass, see {@link MenuHolder#getInventorySnapshot()}.
+ */
+public final class InventorySnapshot {
+
+    private final Map<Material, List<Entry>> entries = new EnumMap<>(Material.class);
+    private final boolean emptySlot;
+
+    public InventorySnapshot(final @NotNull Player player) {
+        final PlayerInventory inventory = player.getInventory();
+
+        boolean emptySlot = false;
+        for (final ItemStack item : inventory.getStorageContents()) {
+            if (item == null || item.getType() == Material.AIR) {
+                emptySlot = true;
+                continue;
+            }
+            add(item, Section.STORAGE);
+        }
+        this.emptySlot = emptySlot;
+
+        for (final ItemStack item : inventory.getExtraContents()) {
+            add(item, Section.EXTRA);
+        }
+        for (final ItemStack item : inventory.getArmorContents()) {
+            add(item, Section.ARMOR);
+        }
+    }
+
+    private void add(final @Nullable ItemStack item, final @NotNull Section section) {
+        if (item == null || item.getType() == Material.AIR) {
+            return;
+        }
+        entries.computeIfAbsent(item.getType(), material -> new ArrayList<>()).add(new Entry(item, section));
+    }
+
+    /**
+     * @param material the material of the stacks
+     * @return the stacks of the material, in storage, extra and armor order
+     */
+    public @NotNull List<Entry> getItems(final @NotNull Material material) {
+        return entries.getOrDefault(material, List.of());
+    }
+
+    /**
+     * @return true if the storage of the inventory has at least one empty slot
+     */
+    public boolean hasEmptySlot() {
+        return emptySlot;
+    }
+
+    /**
+     * The part of the inventory a stack is in.
+     */
+    public enum Section {
+        STORAGE,
+        /**
+         * The off hand
+         */
+        EXTRA,
+        ARMOR
+    }
+
+    /**
+     * A stack of the inventory.
+     */
+    public static final class Entry {
+
+        private final ItemStack item;
+        private final Section section;
+        private volatile Fingerprint fingerprint;
+
+        private Entry(final @NotNull ItemStack item, final @NotNull Section section) {
+            this.item = item;
+            this.section = section;
+        }
+
+        public @NotNull Section getSection() {
+            return section;
+        }
+
+        public int getAmount() {
+            return item.getAmount();
+        }
+
+        @SuppressWarnings("deprecation")
+        public short getDurability() {
+            return item.getDurability();
+        }
+
+        /**
+         * @return the parts of the meta item requirements compare, null if the stack has no meta
+         */
+        public @Nullable Fingerprint getFingerprint() {
+            Fingerprint fingerprint = this.fingerprint;
+            if (fingerprint == null) {
+                final ItemMeta meta = item.getItemMeta();
+                fingerprint = meta == null ? Fingerprint.NONE : new Fingerprint(meta);
+                this.fingerprint = fingerprint;
+            }
+            return fingerprint == Fingerprint.NONE ? null : fingerprint;
+        }
+    }
+
+    /**
+     * The name, lore and custom model data of a stack. The name and lore are colored, but placeholders in them are
+     * left alone, they are text of the player and not of the menu.
+     */
+    public static final class Fingerprint {
+
+        private static final Fingerprint NONE = new Fingerprint();
+
+        private final String displayName;
+        private final String lore;
+        private final Integer customModelData;
+
+        private Fingerprint() {
+            this.displayName = null;
+            this.lore = null;
+            this.customModelData = null;
+        }
+
+        private Fingerprint(final @NotNull ItemMeta meta) {
+            this.displayName = meta.hasDisplayName() ? StringUtils.color(meta.getDisplayName()) : null;
+
+            final List<String> lore = meta.getLore();
+            if (lore == null) {
+                this.lore = null;
+            } else {
+                final List<String> colored = new ArrayList<>(lore.size());
+                for (final String line : lore) {
+                    colored.add(StringUtils.color(line));
+                }
+                this.lore = String.join("&&", colored);
+            }
+
+            this.customModelData = VersionHelper.IS_CUSTOM_MODEL_DATA && meta.hasCustomModelData()
+                    ? meta.getCustomModelData()
+                    : null;
+        }
+
+        /**
+         * @return the colored display name, null if the stack has none
+         */
+        public @Nullable String getDisplayName() {
+            return displayName;
+        }
+
+        /**
+         * @return the colored lore lines joined by {@code &&}, null if the stack has no lore
+         */
+        public @Nullable String getLore() {
+            return lore;
+        }
+
+        /**
+         * @return the custom model data, null if the stack has none or the server does not support it
+         */
+        public @Nullable Integer getCustomModelData() {
+            return customModelData;
+        }
+    }
+}
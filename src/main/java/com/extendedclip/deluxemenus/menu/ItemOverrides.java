@@ -0,0 +1,239 @@
+package com.extendedclip.deluxemenus.menu;
+
+import com.extendedclip.deluxemenus.DeluxeMenus;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The material, name and lore temporarily set on the items of a single {@link MenuHolder} by the set item, set name
+ * and set lore actions. The options of the items are shared by every viewer of the menu and are never changed, the
+ * overrides are applied on top of the resolved content of a slot when it is rendered instead.
+ * <br>
+ * Every override expires after the amount of ticks it was set for. A holder uses a single task for all of its
+ * overrides, scheduled for the earliest expiry. Only the slots whose overrides expired are rendered again, from the
+ * content last resolved for them: placeholders are not resolved again.
+ * Only accessed from the main thread.
+ */
+public final class ItemOverrides {
+
+    private static final long NANOS_PER_TICK = 50_000_000L;
+
+    private final MenuHolder holder;
+    private final Map<Integer, SlotOverride> overrides = new HashMap<>();
+    private BukkitTask expiryTask;
+    private long scheduledExpiry = Long.MAX_VALUE;
+
+    ItemOverrides(final @NotNull MenuHolder holder) {
+        this.holder = holder;
+    }
+
+    /**
+     * Override the material of a slot.
+     *
+     * @param slot     the raw slot
+     * @param material the name of the material
+     * @param ticks    the amount of ticks the override lasts
+     * @return false if the material of the slot is already overridden
+     */
+    public boolean setMaterial(final int slot, final @NotNull String material, final long ticks) {
+        final SlotOverride override = overrides.computeIfAbsent(slot, key -> new SlotOverride());
+        if (override.material != null) {
+            return false;
+        }
+
+        override.material = material;
+        override.materialExpiry = expiry(ticks);
+        changed(slot);
+        return true;
+    }
+
+    /**
+     * Override the display name of a slot.
+     *
+     * @param slot        the raw slot
+     * @param displayName the colored display name
+     * @param ticks       the amount of ticks the override lasts
+     * @return false if the display name of the slot is already overridden
+     */
+    public boolean setDisplayName(final int slot, final @NotNull String displayName, final long ticks) {
+        final SlotOverride override = overrides.computeIfAbsent(slot, key -> new SlotOverride());
+        if (override.displayName != null) {
+            return false;
+        }
+
+        override.displayName = displayName;
+        override.displayNameExpiry = expiry(ticks);
+        changed(slot);
+        return true;
+    }
+
+    /**
+     * Override the lore of a slot.
+     *
+     * @param slot  the raw slot
+     * @param lore  the colored lore
+     * @param ticks the amount of ticks the override lasts
+     * @return false if the lore of the slot is already overridden
+     */
+    public boolean setLore(final int slot, final @NotNull List<String> lore, final long ticks) {
+        final SlotOverride override = overrides.computeIfAbsent(slot, key -> new SlotOverride());
+        if (override.lore != null) {
+            return false;
+        }
+
+        override.lore = List.copyOf(lore);
+        override.loreExpiry = expiry(ticks);
+        changed(slot);
+        return true;
+    }
+
+    /**
+     * Apply the overrides of a slot to its resolved content.
+     *
+     * @param slot    the raw slot
+     * @param content the content resolved for the slot
+     * @return the content with the overrides applied, or the content itself if the slot has no overrides
+     */
+    public @NotNull ResolvedItem apply(final int slot, final @NotNull ResolvedItem content) {
+        final SlotOverride override = overrides.isEmpty() ? null : overrides.get(slot);
+        if (override == null) {
+            return content;
+        }
+
+        return content.withOverride(override.material, override.displayName, override.lore);
+    }
+
+    public boolean isEmpty() {
+        return overrides.isEmpty();
+    }
+
+    /**
+     * Drop every override without rendering the slots again. Used when the menu is closed, which can happen off the
+     * main thread, in which case the overrides are dropped on the main thread.
+     */
+    public void clear() {
+        if (!Bukkit.isPrimaryThread()) {
+            Bukkit.getScheduler().runTask(DeluxeMenus.getInstance(), this::clear);
+            return;
+        }
+
+        overrides.clear();
+        cancelExpiryTask();
+    }
+
+    private void changed(final int slot) {
+        holder.renderSlot(slot);
+        scheduleExpiry();
+    }
+
+    private void expire() {
+        expiryTask = null;
+        scheduledExpiry = Long.MAX_VALUE;
+
+        // Overrides due within the next tick are expired now rather than a tick late
+        final long now = System.nanoTime() + NANOS_PER_TICK / 2;
+        final Iterator<Map.Entry<Integer, SlotOverride>> iterator = overrides.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Integer, SlotOverride> entry = iterator.next();
+            if (!entry.getValue().expire(now)) {
+                continue;
+            }
+
+            if (entry.getValue().isEmpty()) {
+                iterator.remove();
+            }
+            holder.renderSlot(entry.getKey());
+        }
+
+        scheduleExpiry();
+    }
+
+    private void scheduleExpiry() {
+        long earliest = Long.MAX_VALUE;
+        for (final SlotOverride override : overrides.values()) {
+            earliest = Math.min(earliest, override.nextExpiry());
+        }
+
+        if (earliest == Long.MAX_VALUE) {
+            cancelExpiryTask();
+            return;
+        }
+
+        if (expiryTask != null && scheduledExpiry <= earliest) {
+            return;
+        }
+
+        cancelExpiryTask();
+        final long ticks = Math.max(1, (earliest - System.nanoTime() + NANOS_PER_TICK - 1) / NANOS_PER_TICK);
+        scheduledExpiry = earliest;
+        expiryTask = Bukkit.getScheduler().runTaskLater(DeluxeMenus.getInstance(), this::expire, ticks);
+    }
+
+    private void cancelExpiryTask() {
+        if (expiryTask != null) {
+            expiryTask.cancel();
+            expiryTask = null;
+        }
+        scheduledExpiry = Long.MAX_VALUE;
+    }
+
+    private static long expiry(final long ticks) {
+        return System.nanoTime() + Math.max(0, ticks) * NANOS_PER_TICK;
+    }
+
+    private static final class SlotOverride {
+        private String material;
+        private long materialExpiry;
+        private String displayName;
+        private long displayNameExpiry;
+        private List<String> lore;
+        private long loreExpiry;
+
+        /**
+         * Drop the overridden parts that are due.
+         *
+         * @param now the current time in nanoseconds
+         * @return true if any part was dropped
+         */
+        private boolean expire(final long now) {
+            boolean expired = false;
+            if (material != null && materialExpiry <= now) {
+                material = null;
+                expired = true;
+            }
+            if (displayName != null && displayNameExpiry <= now) {
+                displayName = null;
+                expired = true;
+            }
+            if (lore != null && loreExpiry <= now) {
+                lore = null;
+                expired = true;
+            }
+            return expired;
+        }
+
+        private long nextExpiry() {
+            long next = Long.MAX_VALUE;
+            if (material != null) {
+                next = Math.min(next, materialExpiry);
+            }
+            if (displayName != null) {
+                next = Math.min(next, displayNameExpiry);
+            }
+            if (lore != null) {
+                next = Math.min(next, loreExpiry);
+            }
+            return next;
+        }
+
+        private boolean isEmpty() {
+            return material == null && displayName == null && lore == null;
+        }
+    }
+}
@@ -5,11 +5,11 @@ import com.extendedclip.deluxemenus.dupe.MenuItemMarker;
 import com.extendedclip.deluxemenus.menu.options.MenuOptions;
 import com.extendedclip.deluxemenus.requirement.RequirementList;
 import com.extendedclip.deluxemenus.utils.DebugLevel;
-import com.extendedclip.deluxemenus.utils.StringUtils;
 
 import java.lang.reflect.Field;
 import java.util.*;
-import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 import me.clip.placeholderapi.util.Msg;
@@ -28,18 +28,29 @@ import org.jetbrains.annotations.Nullable;
 public class Menu extends Command {
 
     private static final Map<String, Menu> menus = new HashMap<>();
-    private static final Set<MenuHolder> menuHolders = new HashSet<>();
-    private static final Map<UUID, Menu> lastOpenedMenus = new HashMap<>();
+    // Case-folded lookup indexes, rebuilt as menus are loaded and unloaded
+    private static final Map<String, Menu> menusByName = new ConcurrentHashMap<>();
+    private static final Map<String, Menu> menusByCommand = new ConcurrentHashMap<>();
+    private static final Set<String> menuCommandLabels = ConcurrentHashMap.newKeySet();
+    private static final MenuHolderRegistry menuHolders = new MenuHolderRegistry();
+    private static final Map<UUID, Menu> lastOpenedMenus = new ConcurrentHashMap<>();
+    private static final AtomicLong registryVersion = new AtomicLong();
     private static CommandMap commandMap = null;
 
     private final MenuOptions options;
-    private final Map<Integer, TreeMap<Integer, MenuItem>> items;
+    private final MenuLayout layout;
+    private final MenuRenderStats renderStats = new MenuRenderStats();
+    private final MenuClickStats clickStats = new MenuClickStats();
 
     public Menu(final @NotNull MenuOptions options, final @NotNull Map<Integer, TreeMap<Integer, MenuItem>> items) {
+        this(options, MenuLayout.compile(options.name(), options.size(), items));
+    }
+
+    public Menu(final @NotNull MenuOptions options, final @NotNull MenuLayout layout) {
         super(options.commands().isEmpty() ? options.name() : options.commands().get(0));
 
         this.options = options;
-        this.items = items;
+        this.layout = layout;
 
         if (this.options.registerCommands()) {
             if (this.options.commands().size() > 1) {
@@ -49,45 +60,97 @@ public class Menu extends Command {
             addCommand();
         }
         menus.put(this.options.name(), this);
+        menusByName.put(this.options.name().toLowerCase(Locale.ROOT), this);
+        registryVersion.incrementAndGet();
+        for (String command : this.options.commands()) {
+            final String lowercaseCommand = command.toLowerCase(Locale.ROOT);
+            menusByCommand.putIfAbsent(lowercaseCommand, this);
+            menuCommandLabels.add(getCommandLabel(lowercaseCommand));
+        }
     }
 
     public static void unload(final @NotNull String name) {
-        for (Player p : Bukkit.getOnlinePlayers()) {
-            if (isInMenu(p, name)) {
-                closeMenu(p, true);
-            }
+        Optional<Menu> menu = Menu.getMenuByName(name);
+        if (menu.isEmpty()) {
+            return;
+        }
+
+        for (MenuHolder holder : List.copyOf(menuHolders.getByMenu(menu.get().options().name()))) {
+            closeMenu(holder.getViewer(), true);
         }
 
+        menu.get().remove();
+    }
+
+    /**
+     * Unload a menu without closing it for its viewers, so that it can be replaced by a new definition and its viewers
+     * rebound to it by the {@link MenuRebinder}. The clicks and live updates of the viewers are ignored until then.
+     *
+     * @param name the name of the menu
+     * @return the unloaded menu, or null if no menu is loaded with the name
+     */
+    public static @Nullable Menu detach(final @NotNull String name) {
         Optional<Menu> menu = Menu.getMenuByName(name);
         if (menu.isEmpty()) {
-            return;
+            return null;
+        }
+
+        for (MenuHolder holder : menuHolders.getByMenu(menu.get().options().name())) {
+            holder.setUpdating(true);
         }
 
-        menu.get().removeCommand();
-        menus.remove(name);
+        menu.get().remove();
+        return menu.get();
+    }
+
+    private void remove() {
+        removeCommand();
+        menus.remove(options.name());
+        menusByName.remove(options.name().toLowerCase(Locale.ROOT));
+        registryVersion.incrementAndGet();
+        menusByCommand.values().removeIf(m -> m == this);
+        menuCommandLabels.clear();
+        for (String command : menusByCommand.keySet()) {
+            menuCommandLabels.add(getCommandLabel(command));
+        }
     }
 
     public static void unload() {
-        for (Player p : Bukkit.getOnlinePlayers()) {
-            if (isInMenu(p)) {
-                closeMenu(p, true);
-            }
+        for (MenuHolder holder : List.copyOf(menuHolders.getAll())) {
+            closeMenu(holder.getViewer(), true);
         }
         for (Menu menu : Menu.getAllMenus()) {
             menu.removeCommand();
         }
         menus.clear();
+        menusByName.clear();
+        registryVersion.incrementAndGet();
+        menusByCommand.clear();
+        menuCommandLabels.clear();
         menuHolders.clear();
         lastOpenedMenus.clear();
     }
 
     public static void unloadForShutdown() {
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            if (isInMenu(player)) {
-                closeMenuForShutdown(player);
-            }
+        for (MenuHolder holder : List.copyOf(menuHolders.getAll())) {
+            closeMenuForShutdown(holder.getViewer());
         }
         menus.clear();
+        menusByName.clear();
+        registryVersion.incrementAndGet();
+        menusByCommand.clear();
+        menuCommandLabels.clear();
+        menuHolders.clear();
+    }
+
+    /**
+     * Get the version of the loaded menus. It changes every time a menu is loaded or unloaded, so a menu looked up by
+     * name can be kept until the version changes.
+     *
+     * @return the version of the loaded menus
+     */
+    public static long getRegistryVersion() {
+        return registryVersion.get();
     }
 
     public static int getLoadedMenuSize() {
@@ -99,11 +162,27 @@ public class Menu extends Command {
     }
 
     public static @NotNull Optional<Menu> getMenuByName(final @NotNull String name) {
-        return menus.entrySet().stream().filter(e -> e.getKey().equalsIgnoreCase(name)).findFirst().map(Entry::getValue);
+        return Optional.ofNullable(menusByName.get(name.toLowerCase(Locale.ROOT)));
     }
 
     public static @NotNull Optional<Menu> getMenuByCommand(final @NotNull String command) {
-        return menus.values().stream().filter(m -> m.getMenuCommandUsed(command).isPresent()).findFirst();
+        return Optional.ofNullable(menusByCommand.get(command.toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * Cheap pre-check for the command preprocess listener. Returns false if no menu command starts with the given
+     * label, so full command lines can be rejected without looking them up.
+     *
+     * @param label the first word of the command line, without the leading slash
+     * @return true if at least one menu command starts with this label
+     */
+    public static boolean isMenuCommandLabel(final @NotNull String label) {
+        return menuCommandLabels.contains(label.toLowerCase(Locale.ROOT));
+    }
+
+    private static @NotNull String getCommandLabel(final @NotNull String command) {
+        final int space = command.indexOf(' ');
+        return space == -1 ? command : command.substring(0, space);
     }
 
     public static boolean isMenuCommand(final @NotNull String command) {
@@ -111,15 +190,30 @@ public class Menu extends Command {
     }
 
     public static boolean isInMenu(final @NotNull Player player) {
-        return menuHolders.stream().anyMatch(h -> h.getViewerName().equals(player.getName()));
+        return menuHolders.contains(player.getUniqueId());
     }
 
     public static boolean isInMenu(final @NotNull Player player, final @NotNull String menu) {
-        return menuHolders.stream().anyMatch(h -> h.getMenuName().equals(menu) && h.getViewerName().equals(player.getName()));
+        final MenuHolder holder = menuHolders.get(player.getUniqueId());
+        return holder != null && menu.equals(holder.getMenuName());
     }
 
     public static Optional<MenuHolder> getMenuHolder(final @NotNull Player player) {
-        return menuHolders.stream().filter(h -> h.getViewerName().equals(player.getName())).findFirst();
+        return Optional.ofNullable(menuHolders.get(player.getUniqueId()));
+    }
+
+    /**
+     * Get every holder currently viewing the given menu, without iterating over the online players.
+     *
+     * @param menu the exact name of the menu
+     * @return the holders viewing the menu
+     */
+    public static @NotNull Collection<MenuHolder> getMenuHolders(final @NotNull String menu) {
+        return menuHolders.getByMenu(menu);
+    }
+
+    public static @NotNull Collection<MenuHolder> getMenuHolders() {
+        return menuHolders.getAll();
     }
 
     public static Optional<Menu> getOpenMenu(final @NotNull Player player) {
@@ -130,6 +224,20 @@ public class Menu extends Command {
         return Optional.ofNullable(lastOpenedMenus.get(player.getUniqueId()));
     }
 
+    /**
+     * Point the players who last closed the previous definition of a menu to its current definition.
+     *
+     * @param previous the unloaded definition of the menu
+     * @param current  the loaded definition of the menu, or null if the menu was not loaded again
+     */
+    static void rebindLastMenus(final @NotNull Menu previous, final @Nullable Menu current) {
+        if (current == null) {
+            lastOpenedMenus.values().removeIf(menu -> menu == previous);
+        } else {
+            lastOpenedMenus.replaceAll((uuid, menu) -> menu == previous ? current : menu);
+        }
+    }
+
     public static void cleanInventory(final @NotNull Player player, final @NotNull MenuItemMarker marker) {
         for (final ItemStack itemStack : player.getInventory().getContents()) {
             if (itemStack == null) continue;
@@ -154,6 +262,7 @@ public class Menu extends Command {
         MenuHolder holder = optionalHolder.get();
 
         holder.stopPlaceholderUpdate();
+        holder.getItemOverrides().clear();
 
         if (executeCloseActions) {
             holder.getMenu().map(Menu::options).map(MenuOptions::closeHandler).flatMap(h -> h).ifPresent(h -> h.onClick(holder));
@@ -165,8 +274,11 @@ public class Menu extends Command {
                 cleanInventory(player, DeluxeMenus.getInstance().getMenuItemMarker());
             });
         }
-        menuHolders.remove(holder);
-        lastOpenedMenus.put(player.getUniqueId(), holder.getMenu().orElse(null));
+        menuHolders.unregister(holder);
+        holder.getMenu().ifPresentOrElse(
+                menu -> lastOpenedMenus.put(player.getUniqueId(), menu),
+                () -> lastOpenedMenus.remove(player.getUniqueId())
+        );
     }
 
     public static void closeMenuForShutdown(final @NotNull Player player) {
@@ -327,7 +439,7 @@ public class Menu extends Command {
     }
 
     public void openMenu(final @NotNull Player viewer, final @Nullable Map<String, String> args, final @Nullable Player placeholderPlayer) {
-        if (items == null || items.isEmpty()) {
+        if (layout.isEmpty()) {
             return;
         }
 
@@ -339,120 +451,154 @@ public class Menu extends Command {
         holder.parsePlaceholdersInArguments(this.options.parsePlaceholdersInArguments());
         holder.parsePlaceholdersAfterArguments(this.options.parsePlaceholdersAfterArguments());
 
-        if (!this.handleArgRequirements(holder)) {
-            return;
-        }
+        // The requirements and the first render share the placeholders they resolve
+        holder.beginRenderScope();
 
-        if (!this.handleOpenRequirements(holder)) {
+        if (!this.handleArgRequirements(holder) || !this.handleOpenRequirements(holder)) {
+            holder.endRenderScope();
             return;
         }
 
         Bukkit.getScheduler().runTaskAsynchronously(DeluxeMenus.getInstance(), () -> {
 
-            Set<MenuItem> activeItems = new HashSet<>();
+            final MenuRenderPlan plan;
+            final String title;
 
-            for (Entry<Integer, TreeMap<Integer, MenuItem>> entry : items.entrySet()) {
+            try {
+                plan = MenuRenderPlan.resolve(layout, layout.size(), holder);
 
-                for (MenuItem item : entry.getValue().values()) {
+                if (plan.isEmpty()) {
+                    return;
+                }
 
-                    int slot = item.options().slot();
+                title = holder.render(this.options.titleTemplate());
+            } finally {
+                holder.endRenderScope();
+            }
 
-                    if (slot >= this.options.size()) {
-                        DeluxeMenus.debug(
-                                DebugLevel.HIGHEST,
-                                Level.WARNING,
-                                "Item set to slot " + slot + " for menu: " + this.options.name() + " exceeds the inventory size!",
-                                "This item will not be added to the menu!"
-                        );
-                        continue;
-                    }
+            holder.setMenuName(this.options.name());
+            holder.setActiveItems(plan.getItems());
 
-                    if (item.options().viewRequirements().isPresent()) {
+            this.options.openHandler().ifPresent(h -> h.onClick(holder));
 
-                        if (item.options().viewRequirements().get().evaluate(holder)) {
+            final boolean updatePlaceholders = holder.hasUpdatingItems();
 
-                            activeItems.add(item);
-                            break;
-                        }
-                    } else {
+            Bukkit.getScheduler().runTask(DeluxeMenus.getInstance(), () -> {
+                final Inventory inventory;
 
-                        activeItems.add(item);
-                        break;
-                    }
+                if (this.options.type() != InventoryType.CHEST) {
+                    inventory = Bukkit.createInventory(holder, this.options.type(), title);
+                } else {
+                    inventory = Bukkit.createInventory(holder, this.options.size(), title);
                 }
-            }
-
-            if (activeItems.isEmpty()) {
-                return;
-            }
-
-            holder.setMenuName(this.options.name());
-            holder.setActiveItems(activeItems);
 
-            this.options.openHandler().ifPresent(h -> h.onClick(holder));
+                holder.setInventory(inventory);
+                plan.apply(holder, inventory, renderStats);
 
-            String title = StringUtils.color(holder.setPlaceholdersAndArguments(this.options.title()));
+                if (isInMenu(holder.getViewer())) {
+                    closeMenu(holder.getViewer(), false);
+                }
 
-            Inventory inventory;
+                viewer.openInventory(inventory);
+                menuHolders.register(holder);
 
-            if (this.options.type() != InventoryType.CHEST) {
-                inventory = Bukkit.createInventory(holder, this.options.type(), title);
-            } else {
-                inventory = Bukkit.createInventory(holder, this.options.size(), title);
-            }
+                if (updatePlaceholders) {
+                    holder.startUpdatePlaceholdersTask();
+                }
+            });
+        });
+    }
 
-            holder.setInventory(inventory);
+    /**
+     * Show this menu to a viewer of its previous definition, after a reload, without running its open requirements and
+     * actions again. The items are rendered again in the open inventory, which is only replaced when the type, size or
+     * title of the menu changed. Must be called on the main thread.
+     *
+     * @param holder   the holder of the viewer, detached from the previous definition
+     * @param previous the previous definition of this menu
+     */
+    void rebind(final @NotNull MenuHolder holder, final @NotNull Menu previous) {
+        holder.getItemOverrides().clear();
+
+        if (layout.isEmpty()) {
+            closeMenu(holder.getViewer(), true);
+            return;
+        }
 
-            boolean update = false;
+        final Inventory inventory = holder.getInventory();
+        final boolean sameInventory = inventory != null
+                && inventory.getType() == this.options.type()
+                && (this.options.type() != InventoryType.CHEST || inventory.getSize() == this.options.size())
+                && previous.options().titleTemplate().getRaw().equals(this.options.titleTemplate().getRaw());
 
-            for (MenuItem item : activeItems) {
+        if (sameInventory) {
+            holder.refreshMenu();
+            return;
+        }
 
-                ItemStack iStack = item.getItemStack(holder);
+        holder.stopPlaceholderUpdate();
 
-                if (iStack == null) {
-                    continue;
-                }
+        Bukkit.getScheduler().runTaskAsynchronously(DeluxeMenus.getInstance(), () -> {
 
-                iStack = DeluxeMenus.getInstance().getMenuItemMarker().mark(iStack);
+            final MenuRenderPlan plan;
+            final String title;
 
-                int slot = item.options().slot();
+            holder.beginRenderScope();
+            try {
+                plan = MenuRenderPlan.resolve(layout, layout.size(), holder);
+                title = plan.isEmpty() ? null : holder.render(this.options.titleTemplate());
+            } finally {
+                holder.endRenderScope();
+            }
 
-                if (slot >= this.options.size()) {
-                    DeluxeMenus.debug(
-                            DebugLevel.HIGHEST,
-                            Level.WARNING,
-                            "Item set to slot " + slot + " for menu: " + this.options.name() + " exceeds the inventory size!",
-                            "This item will not be added to the menu!"
-                    );
-                    continue;
+            Bukkit.getScheduler().runTask(DeluxeMenus.getInstance(), () -> {
+                // The viewer closed the menu or opened another one in the meantime
+                if (menuHolders.get(holder.getViewer().getUniqueId()) != holder) {
+                    return;
                 }
 
-                if (item.options().updatePlaceholders()) {
-                    update = true;
+                if (plan.isEmpty()) {
+                    closeMenu(holder.getViewer(), true);
+                    return;
                 }
 
-                inventory.setItem(item.options().slot(), iStack);
-            }
+                final Inventory reopened;
 
-            final boolean updatePlaceholders = update;
-
-            Bukkit.getScheduler().runTask(DeluxeMenus.getInstance(), () -> {
-                if (isInMenu(holder.getViewer())) {
-                    closeMenu(holder.getViewer(), false);
+                if (this.options.type() != InventoryType.CHEST) {
+                    reopened = Bukkit.createInventory(holder, this.options.type(), title);
+                } else {
+                    reopened = Bukkit.createInventory(holder, this.options.size(), title);
                 }
 
-                viewer.openInventory(inventory);
-                menuHolders.add(holder);
+                // Unregistered while the previous inventory is closed, so its close event does not close the menu
+                menuHolders.unregister(holder);
 
-                if (updatePlaceholders) {
+                holder.setInventory(reopened);
+                holder.setRenderedContent(new ResolvedItem[0], new ResolvedItem[0]);
+                plan.apply(holder, reopened, renderStats);
+                holder.setActiveItems(plan.getItems());
+
+                holder.getViewer().openInventory(reopened);
+                menuHolders.register(holder);
+                holder.setUpdating(false);
+
+                if (holder.hasUpdatingItems()) {
                     holder.startUpdatePlaceholdersTask();
                 }
             });
         });
     }
 
-    public @NotNull Map<Integer, TreeMap<Integer, MenuItem>> getMenuItems() {
-        return this.items;
+    public @NotNull MenuLayout getLayout() {
+        return this.layout;
+    }
+
+    public @NotNull MenuRenderStats getRenderStats() {
+        return this.renderStats;
+    }
+
+    public @NotNull MenuClickStats getClickStats() {
+        return this.clickStats;
     }
 
     public @NotNull Optional<String> getMenuCommandUsed(final @NotNull String command) {
@@ -0,0 +1,46 @@
+package com.extendedclip.deluxemenus.menu;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the clicks on the items of a {@link Menu} that were let through and ignored by the {@link ClickThrottle}, to
+ * help tune the {@code click_throttle} options of the menu.
+ */
+public final class MenuClickStats {
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder throttledByDelay = new LongAdder();
+    private final LongAdder throttledByBucket = new LongAdder();
+
+    void recordAllowed() {
+        allowed.increment();
+    }
+
+    void recordThrottled(final boolean bucket) {
+        (bucket ? throttledByBucket : throttledByDelay).increment();
+    }
+
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    /**
+     * @return the clicks ignored because they came too soon after a previous click
+     */
+    public long getThrottledByDelay() {
+        return throttledByDelay.sum();
+    }
+
+    /**
+     * @return the clicks ignored because the token bucket of the viewer was empty
+     */
+    public long getThrottledByBucket() {
+        return throttledByBucket.sum();
+    }
+
+    public void reset() {
+        allowed.reset();
+        throttledByDelay.reset();
+        throttledByBucket.reset();
+    }
+}
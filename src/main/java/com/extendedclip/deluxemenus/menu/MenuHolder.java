@@ -2,6 +2,7 @@ package com.extendedclip.deluxemenus.menu;
 
 import com.extendedclip.deluxemenus.DeluxeMenus;
 import com.extendedclip.deluxemenus.menu.options.MenuOptions;
+import com.extendedclip.deluxemenus.utils.StringTemplate;
 import com.extendedclip.deluxemenus.utils.StringUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
@@ -9,32 +10,36 @@ import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.TreeMap;
 
 public class MenuHolder implements InventoryHolder {
 
     private final Player viewer;
     private Player placeholderPlayer;
     private String menuName;
-    private Set<MenuItem> activeItems;
-    private BukkitTask updateTask = null;
+    // Active items indexed by raw slot, plus the slots holding items that need live placeholder updates
+    private MenuItem[] activeItems = new MenuItem[0];
+    private int[] updatingSlots = new int[0];
+    // The content last written to each slot, and the content resolved for it before the overrides were applied, only
+    // accessed from the main thread
+    private ResolvedItem[] renderedContent = new ResolvedItem[0];
+    private ResolvedItem[] resolvedContent = new ResolvedItem[0];
+    // Placeholders resolved during the current open, refresh or live update pass
+    private volatile RenderScope renderScope;
+    private final Object renderScopeLock = new Object();
     private Inventory inventory;
     private boolean updating;
     private boolean parsePlaceholdersInArguments;
     private boolean parsePlaceholdersAfterArguments;
     private Map<String, String> typedArgs;
 
-    private final SetHolder setHolder = new SetHolder();
+    private final ItemOverrides itemOverrides = new ItemOverrides(this);
     private boolean isHold = false;
 
     public MenuHolder(Player viewer) {
@@ -45,18 +50,14 @@ public class MenuHolder implements InventoryHolder {
                       Set<MenuItem> activeItems, Inventory inventory) {
         this.viewer = viewer;
         this.menuName = menuName;
-        this.activeItems = activeItems;
         this.inventory = inventory;
+        setActiveItems(activeItems);
     }
 
     public String getViewerName() {
         return viewer.getName();
     }
 
-    public BukkitTask getUpdateTask() {
-        return updateTask;
-    }
-
     public Player getViewer() {
         return viewer;
     }
@@ -69,12 +70,88 @@ public class MenuHolder implements InventoryHolder {
         this.menuName = menuName;
     }
 
+    /**
+     * Get a snapshot of the active items. Prefer {@link #getItem(int)} when the slot is known.
+     *
+     * @return the active items of this holder
+     */
     public Set<MenuItem> getActiveItems() {
-        return activeItems;
+        final Set<MenuItem> items = new HashSet<>();
+        for (MenuItem item : activeItems) {
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
     }
 
     public void setActiveItems(Set<MenuItem> items) {
-        this.activeItems = items;
+        int size = inventory != null ? inventory.getSize() : 0;
+        for (MenuItem item : items) {
+            size = Math.max(size, item.options().slot() + 1);
+        }
+
+        final MenuItem[] itemsBySlot = new MenuItem[size];
+        for (MenuItem item : items) {
+            if (item.options().slot() >= 0) {
+                itemsBySlot[item.options().slot()] = item;
+            }
+        }
+        setActiveItems(itemsBySlot);
+    }
+
+    /**
+     * Set the active items of this holder.
+     *
+     * @param itemsBySlot the active items indexed by their raw inventory slot. Empty slots are null.
+     */
+    public void setActiveItems(final @NotNull MenuItem[] itemsBySlot) {
+        int updating = 0;
+        for (MenuItem item : itemsBySlot) {
+            if (item != null && item.options().updatePlaceholders()) {
+                updating++;
+            }
+        }
+
+        final int[] slots = new int[updating];
+        int index = 0;
+        for (int slot = 0; slot < itemsBySlot.length; slot++) {
+            if (itemsBySlot[slot] != null && itemsBySlot[slot].options().updatePlaceholders()) {
+                slots[index++] = slot;
+            }
+        }
+
+        this.activeItems = itemsBySlot;
+        this.updatingSlots = slots;
+    }
+
+    /**
+     * @return the slots of the active items that need their placeholders updated, in ascending order
+     */
+    public int[] getUpdatingSlots() {
+        return updatingSlots;
+    }
+
+    public boolean hasUpdatingItems() {
+        return updatingSlots.length > 0;
+    }
+
+    @Nullable ResolvedItem getRenderedContent(final int slot) {
+        return slot >= 0 && slot < renderedContent.length ? renderedContent[slot] : null;
+    }
+
+    @Nullable ResolvedItem getResolvedContent(final int slot) {
+        return slot >= 0 && slot < resolvedContent.length ? resolvedContent[slot] : null;
+    }
+
+    /**
+     * @param renderedContent the content written to each slot
+     * @param resolvedContent the content resolved for each slot, before the {@link ItemOverrides} were applied
+     */
+    void setRenderedContent(final @NotNull ResolvedItem[] renderedContent,
+                            final @NotNull ResolvedItem[] resolvedContent) {
+        this.renderedContent = renderedContent;
+        this.resolvedContent = resolvedContent;
     }
 
     public MenuHolder getHolder() {
@@ -82,12 +159,8 @@ public class MenuHolder implements InventoryHolder {
     }
 
     public MenuItem getItem(int slot) {
-        for (MenuItem item : activeItems) {
-            if (item.options().slot() == slot) {
-                return item;
-            }
-        }
-        return null;
+        final MenuItem[] items = activeItems;
+        return slot >= 0 && slot < items.length ? items[slot] : null;
     }
 
     public Optional<Menu> getMenu() {
@@ -101,15 +174,78 @@ public class MenuHolder implements InventoryHolder {
         return setArguments(setPlaceholders(string));
     }
 
+    /**
+     * Render a compiled config string for this holder, replacing its placeholders and arguments.
+     *
+     * @param template the template to render
+     * @return the rendered string
+     */
+    public @NotNull String render(final @NotNull StringTemplate template) {
+        final Player player = this.placeholderPlayer != null ? this.placeholderPlayer : this.getViewer();
+        return template.render(
+                player == null ? null : this::setPlaceholders,
+                this.typedArgs,
+                this.parsePlaceholdersInArguments,
+                this.parsePlaceholdersAfterArguments
+        );
+    }
+
     public @NotNull String setPlaceholders(final @NotNull String string) {
         final Player player = this.placeholderPlayer != null ? this.placeholderPlayer : this.getViewer();
         if (player == null) {
             return string;
         }
 
+        final RenderScope scope = this.renderScope;
+        if (scope != null) {
+            return scope.replacePlaceholders(string, player);
+        }
+
         return StringUtils.replacePlaceholders(string, player);
     }
 
+    /**
+     * Start a render pass. Until the matching {@link #endRenderScope()}, every placeholder resolved for this holder,
+     * including the ones in requirements, is resolved once and reused. Passes can be nested, in which case the scope of
+     * the outermost pass is kept.
+     */
+    public void beginRenderScope() {
+        synchronized (this.renderScopeLock) {
+            if (this.renderScope == null) {
+                this.renderScope = new RenderScope();
+            } else {
+                this.renderScope.enter();
+            }
+        }
+    }
+
+    /**
+     * End a render pass started with {@link #beginRenderScope()}. The resolved placeholders are discarded when the
+     * outermost pass ends.
+     */
+    public void endRenderScope() {
+        synchronized (this.renderScopeLock) {
+            if (this.renderScope != null && this.renderScope.exit()) {
+                this.renderScope = null;
+            }
+        }
+    }
+
+    /**
+     * Get the inventory of the viewer grouped by material. Within a render pass, the inventory is only read once and
+     * the snapshot is shared by every item requirement of the pass.
+     *
+     * @return the inventory of the viewer
+     */
+    public @NotNull InventorySnapshot getInventorySnapshot() {
+        final RenderScope scope = this.renderScope;
+        if (scope != null) {
+            return scope.getInventorySnapshot(this.getViewer());
+        }
+
+        return new InventorySnapshot(this.getViewer());
+    }
+
     public @NotNull String setArguments(final @NotNull String string) {
         final Player player = this.placeholderPlayer != null ? this.placeholderPlayer : this.getViewer();
 
@@ -130,7 +266,7 @@ public class MenuHolder implements InventoryHolder {
 
         Menu menu = optionalMenu.get();
 
-        if (menu.getMenuItems().isEmpty()) {
+        if (menu.getLayout().isEmpty()) {
             return;
         }
 
@@ -140,66 +276,24 @@ public class MenuHolder implements InventoryHolder {
 
         Bukkit.getScheduler().runTaskAsynchronously(DeluxeMenus.getInstance(), () -> {
 
-            final Set<MenuItem> active = new HashSet<>();
-
-            for (int i = 0; i < getInventory().getSize(); i++) {
-                TreeMap<Integer, MenuItem> e = menu.getMenuItems().get(i);
-
-                if (e == null) {
-                    getInventory().setItem(i, null);
-                    continue;
-                }
-
-                boolean m = false;
-                for (MenuItem item : e.values()) {
-
-                    if (item.options().viewRequirements().isPresent()) {
-
-                        if (item.options().viewRequirements().get().evaluate(this)) {
-                            m = true;
-                            active.add(item);
-                            break;
-                        }
-                    } else {
-                        m = true;
-                        active.add(item);
-                        break;
-                    }
-                }
-
-                if (!m) {
-                    getInventory().setItem(i, null);
-                }
-            }
-
-            if (active.isEmpty()) {
-                Menu.closeMenu(getViewer(), true);
+            beginRenderScope();
+            final MenuRenderPlan plan;
+            try {
+                plan = MenuRenderPlan.resolve(menu.getLayout(), getInventory().getSize(), this);
+            } finally {
+                endRenderScope();
             }
 
             Bukkit.getScheduler().runTask(DeluxeMenus.getInstance(), () -> {
-
-                boolean update = false;
-
-                for (MenuItem item : active) {
-
-                    ItemStack iStack = item.getItemStack(this);
-
-                    int slot = item.options().slot();
-
-                    if (slot >= menu.options().size()) {
-                        continue;
-                    }
-
-                    if (item.options().updatePlaceholders()) {
-                        update = true;
-                    }
-
-                    getInventory().setItem(item.options().slot(), iStack);
+                if (plan.isEmpty()) {
+                    Menu.closeMenu(getViewer(), true);
+                    return;
                 }
 
-                setActiveItems(active);
+                plan.apply(this, getInventory(), menu.getRenderStats());
+                setActiveItems(plan.getItems());
 
-                if (update) {
+                if (hasUpdatingItems()) {
                     startUpdatePlaceholdersTask();
                 }
 
@@ -209,91 +303,142 @@ public class MenuHolder implements InventoryHolder {
     }
 
     public void stopPlaceholderUpdate() {
-        if (updateTask != null) {
-            try {
-                updateTask.cancel();
-            } catch (Exception ignored) {
-            }
-            updateTask = null;
-        }
+        DeluxeMenus.getInstance().getMenuUpdateScheduler().unregister(this);
     }
 
     public void startUpdatePlaceholdersTask() {
+        DeluxeMenus.getInstance().getMenuUpdateScheduler().register(
+                this,
+                getMenu().map(Menu::options).map(MenuOptions::updateInterval).orElse(10)
+        );
+    }
 
-        if (updateTask != null) {
-            stopPlaceholderUpdate();
+    /**
+     * Update the placeholders of the items that have live updates enabled. Called by the {@link MenuUpdateScheduler}
+     * off the main thread: the placeholders are resolved right away and the items are updated on the main thread.
+     *
+     * @return true if an update was scheduled, false if the holder is currently being refreshed
+     */
+    public boolean updatePlaceholders() {
+        if (updating) {
+            return false;
         }
 
-        updateTask = new BukkitRunnable() {
+        final int[] slots = getUpdatingSlots();
+        final MenuItem[] items = activeItems;
+        final ResolvedItem[] updates = new ResolvedItem[slots.length];
 
-            @Override
-            public void run() {
+        beginRenderScope();
+        try {
+            for (int i = 0; i < slots.length; i++) {
+                final MenuItem item = slots[i] < items.length ? items[slots[i]] : null;
 
-                if (updating) {
-                    return;
+                if (item == null || !item.options().updatePlaceholders()) {
+                    continue;
                 }
 
-                Set<MenuItem> items = getActiveItems();
+                updates[i] = item.resolveLiveUpdate(this);
+            }
+        } finally {
+            endRenderScope();
+        }
 
-                if (items == null) {
-                    return;
-                }
+        Bukkit.getScheduler().runTask(DeluxeMenus.getInstance(), () -> applyLiveUpdates(slots, items, updates));
+        return true;
+    }
+
+    /**
+     * Render a single slot again after its overrides changed, without refreshing the rest of the menu. The overrides
+     * are applied to the content last resolved for the slot, so no placeholder is resolved again.
+     * Must be called on the main thread.
+     *
+     * @param slot the raw slot to render
+     */
+    public void renderSlot(final int slot) {
+        final MenuItem item = getItem(slot);
+        final ResolvedItem resolved = getResolvedContent(slot);
+        if (item == null || resolved == null || inventory == null || slot >= inventory.getSize()
+                || slot >= renderedContent.length) {
+            return;
+        }
+
+        final ResolvedItem previous = getRenderedContent(slot);
+        final ResolvedItem current = itemOverrides.apply(slot, resolved);
 
-                for (MenuItem item : items) {
+        if (current.hasSameContent(previous)) {
+            getMenu().ifPresent(menu -> menu.getRenderStats().record(0, 1));
+            return;
+        }
+
+        inventory.setItem(slot, item.buildMarked(current, this));
+        renderedContent[slot] = current;
+        getMenu().ifPresent(menu -> menu.getRenderStats().record(1, 0));
+    }
+
+    private void applyLiveUpdates(final int[] slots, final MenuItem[] items, final ResolvedItem[] updates) {
+        // The items might have been replaced by a refresh since the updates were resolved
+        if (updating || items != activeItems) {
+            return;
+        }
 
-                    if (item.options().updatePlaceholders()) {
+        int written = 0;
+        int skipped = 0;
 
-                        ItemStack i = inventory.getItem(item.options().slot());
+        for (int i = 0; i < slots.length; i++) {
+            if (updates[i] == null) {
+                continue;
+            }
 
-                        if (i == null) {
-                            continue;
-                        }
+            // Kept up to date even while overridden, to render the slot from once the override expires
+            final ResolvedItem resolved = getResolvedContent(slots[i]);
+            if (resolved != null) {
+                resolvedContent[slots[i]] = resolved.withLiveUpdate(updates[i]);
+            }
 
-                        int amt = i.getAmount();
+            // Overridden names and lore are kept until the override expires
+            final ResolvedItem update = itemOverrides.apply(slots[i], updates[i]);
 
-                        if (item.options().dynamicAmount().isPresent()) {
-                            try {
-                                amt = Integer.parseInt(setPlaceholdersAndArguments(item.options().dynamicAmount().get()));
-                                if (amt <= 0) {
-                                    amt = 1;
-                                }
-                            } catch (Exception exception) {
-                                DeluxeMenus.printStacktrace(
-                                        "Something went wrong while updating item in slot " + item.options().slot() +
-                                                ". Invalid dynamic amount: " + setPlaceholdersAndArguments(item.options().dynamicAmount().get()),
-                                        exception
-                                );
-                            }
-                        }
+            final ResolvedItem previous = getRenderedContent(slots[i]);
+            final ResolvedItem current = previous == null ? null : previous.withLiveUpdate(update);
 
-                        ItemMeta meta = i.getItemMeta();
+            if (current != null && current.hasSameContent(previous)) {
+                skipped++;
+                continue;
+            }
 
-                        if (item.options().displayNameHasPlaceholders() && item.options().displayName().isPresent()) {
-                            meta.setDisplayName(StringUtils.color(setPlaceholdersAndArguments(item.options().displayName().get())));
-                        }
+            final ItemStack itemStack = inventory.getItem(slots[i]);
 
-                        if (item.options().loreHasPlaceholders()) {
+            if (itemStack == null) {
+                continue;
+            }
 
-                            List<String> updated = new ArrayList<>();
+            final ItemMeta meta = itemStack.getItemMeta();
 
-                            for (String line : item.options().lore()) {
-                                updated.add(StringUtils
-                                        .color(setPlaceholdersAndArguments(line)));
-                            }
-                            meta.setLore(updated);
-                        }
+            if (meta != null) {
+                if (update.getDisplayName() != null) {
+                    meta.setDisplayName(update.getDisplayName());
+                }
 
-                        i.setItemMeta(meta);
-                        i.setAmount(amt);
-                    }
+                if (update.getLore() != null) {
+                    meta.setLore(update.getLore());
                 }
+
+                itemStack.setItemMeta(meta);
+            }
+
+            if (update.getAmount() != -1) {
+                itemStack.setAmount(update.getAmount());
             }
 
-        }.runTaskTimerAsynchronously(DeluxeMenus.getInstance(), 20L,
-                20L * Menu.getMenuByName(menuName)
-                        .map(Menu::options)
-                        .map(MenuOptions::updateInterval)
-                        .orElse(10));
+            if (current != null) {
+                renderedContent[slots[i]] = current;
+            }
+            written++;
+        }
+
+        final int finalWritten = written;
+        final int finalSkipped = skipped;
+        getMenu().ifPresent(menu -> menu.getRenderStats().record(finalWritten, finalSkipped));
     }
 
     public boolean isUpdating() {
@@ -345,8 +490,11 @@ public class MenuHolder implements InventoryHolder {
         return placeholderPlayer;
     }
 
-    public SetHolder getHoldItems() {
-        return setHolder;
+    /**
+     * @return the material, name and lore set on the items of this holder by actions. Only accessed from the main thread.
+     */
+    public @NotNull ItemOverrides getItemOverrides() {
+        return itemOverrides;
     }
 
     public boolean isHold() {
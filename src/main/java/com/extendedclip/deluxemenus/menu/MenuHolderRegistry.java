@@ -0,0 +1,98 @@
+package com.extendedclip.deluxemenus.menu;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of every open {@link MenuHolder}, indexed by the viewer's {@link UUID} and by the name of the menu
+ * they are viewing.
+ * <br>
+ * Both indexes are backed by concurrent maps, so lookups are O(1) and safe from the async tasks used while opening
+ * and refreshing menus.
+ */
+public final class MenuHolderRegistry {
+
+    private final Map<UUID, MenuHolder> holders = new ConcurrentHashMap<>();
+    private final Map<String, Set<MenuHolder>> holdersByMenu = new ConcurrentHashMap<>();
+
+    /**
+     * Register a holder for its viewer. If the viewer already had a holder registered, it is replaced.
+     *
+     * @param holder the holder to register
+     */
+    public void register(final @NotNull MenuHolder holder) {
+        final MenuHolder previous = holders.put(holder.getViewer().getUniqueId(), holder);
+        if (previous != null && previous != holder) {
+            removeFromMenuIndex(previous);
+        }
+
+        if (holder.getMenuName() != null) {
+            holdersByMenu.computeIfAbsent(holder.getMenuName(), name -> ConcurrentHashMap.newKeySet()).add(holder);
+        }
+    }
+
+    /**
+     * Unregister a holder. Nothing happens if the viewer has since been registered with another holder.
+     *
+     * @param holder the holder to unregister
+     * @return true if the holder was registered, false otherwise
+     */
+    public boolean unregister(final @NotNull MenuHolder holder) {
+        if (!holders.remove(holder.getViewer().getUniqueId(), holder)) {
+            return false;
+        }
+
+        removeFromMenuIndex(holder);
+        return true;
+    }
+
+    public @Nullable MenuHolder get(final @NotNull UUID viewer) {
+        return holders.get(viewer);
+    }
+
+    public boolean contains(final @NotNull UUID viewer) {
+        return holders.containsKey(viewer);
+    }
+
+    /**
+     * Get every holder currently viewing the given menu.
+     *
+     * @param menuName the exact name of the menu
+     * @return an unmodifiable view of the holders, empty if nobody is viewing the menu
+     */
+    public @NotNull Collection<MenuHolder> getByMenu(final @NotNull String menuName) {
+        final Set<MenuHolder> viewers = holdersByMenu.get(menuName);
+        return viewers == null ? Collections.emptySet() : Collections.unmodifiableSet(viewers);
+    }
+
+    public @NotNull Collection<MenuHolder> getAll() {
+        return Collections.unmodifiableCollection(holders.values());
+    }
+
+    public int size() {
+        return holders.size();
+    }
+
+    public void clear() {
+        holders.clear();
+        holdersByMenu.clear();
+    }
+
+    private void removeFromMenuIndex(final @NotNull MenuHolder holder) {
+        if (holder.getMenuName() == null) {
+            return;
+        }
+
+        holdersByMenu.computeIfPresent(holder.getMenuName(), (name, viewers) -> {
+            viewers.remove(holder);
+            return viewers.isEmpty() ? null : viewers;
+        });
+    }
+}
@@ -1,13 +1,14 @@
 package com.extendedclip.deluxemenus.menu;
 
 import com.extendedclip.deluxemenus.DeluxeMenus;
+import com.extendedclip.deluxemenus.config.DeluxeMenusConfig;
 import com.extendedclip.deluxemenus.hooks.ItemHook;
 import com.extendedclip.deluxemenus.menu.options.HeadType;
 import com.extendedclip.deluxemenus.menu.options.MenuItemOptions;
 import com.extendedclip.deluxemenus.nbt.NbtProvider;
 import com.extendedclip.deluxemenus.utils.DebugLevel;
 import com.extendedclip.deluxemenus.utils.ItemUtils;
-import com.extendedclip.deluxemenus.utils.StringUtils;
+import com.extendedclip.deluxemenus.utils.StringTemplate;
 import com.extendedclip.deluxemenus.utils.VersionHelper;
 import org.bukkit.Color;
 import org.bukkit.FireworkEffect;
@@ -34,6 +35,7 @@ import org.bukkit.inventory.meta.trim.TrimMaterial;
 import org.bukkit.inventory.meta.trim.TrimPattern;
 import org.bukkit.potion.PotionEffect;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
 import java.util.ArrayList;
@@ -51,16 +53,50 @@ import static com.extendedclip.deluxemenus.utils.Constants.PLACEHOLDER_PREFIX;
 public class MenuItem {
 
     private final @NotNull MenuItemOptions options;
+    // Only used by static items, see MenuItemOptions#staticItem()
+    private volatile StaticRender staticRender;
+    // Only accessed from the main thread
+    private Prototype prototype;
 
     public MenuItem(@NotNull final MenuItemOptions options) {
         this.options = options;
     }
 
+    /**
+     * Resolve and build the item for the given holder. Must be called on the main thread.
+     *
+     * @param holder the holder to build the item for
+     * @return the built item
+     */
     public ItemStack getItemStack(@NotNull final MenuHolder holder) {
-        final Player viewer = holder.getViewer();
+        return build(resolve(holder), holder);
+    }
 
-        ItemStack itemStack = null;
-        int amount = 1;
+    /**
+     * Resolve every placeholder and argument this item depends on. This does not touch any Bukkit item state and is
+     * safe to call off the main thread.
+     *
+     * @param holder the holder to resolve the item for
+     * @return the resolved item, to be passed to {@link #build(ResolvedItem, MenuHolder)}
+     */
+    public @NotNull ResolvedItem resolve(@NotNull final MenuHolder holder) {
+        if (!this.options.staticItem()) {
+            return resolveContent(holder);
+        }
+
+        // Static items resolve the same for everyone, so they are only resolved once
+        final StaticRender cached = this.staticRender;
+        if (cached != null) {
+            return cached.content;
+        }
+
+        final ResolvedItem content = resolveContent(holder);
+        this.staticRender = new StaticRender(content);
+        return content;
+    }
+
+    private @NotNull ResolvedItem resolveContent(@NotNull final MenuHolder holder) {
+        final ResolvedItem resolved = new ResolvedItem();
 
         String stringMaterial = this.options.material();
         String lowercaseStringMaterial = stringMaterial.toLowerCase(Locale.ROOT);
@@ -70,6 +106,288 @@ public class MenuItem {
             lowercaseStringMaterial = stringMaterial.toLowerCase(Locale.ENGLISH);
         }
 
+        resolved.material = stringMaterial;
+        resolved.lowercaseMaterial = lowercaseStringMaterial;
+
+        final String finalMaterial = lowercaseStringMaterial;
+        final ItemHook pluginHook = DeluxeMenus.getInstance().getItemHooks().values()
+            .stream()
+            .filter(x -> finalMaterial.startsWith(x.getPrefix()))
+            .findFirst()
+            .orElse(null);
+
+        if (pluginHook != null) {
+            resolved.hook = pluginHook;
+            resolved.hookArguments = holder.setPlaceholdersAndArguments(stringMaterial.substring(pluginHook.getPrefix().length()));
+        }
+
+        if (this.options.rgb().isPresent()) {
+            resolved.rgb = holder.setPlaceholdersAndArguments(this.options.rgb().get());
+        }
+
+        short data = this.options.data();
+
+        if (this.options.placeholderData().isPresent()) {
+            final String parsedData = holder.setPlaceholdersAndArguments(this.options.placeholderData().get());
+            try {
+                data = Short.parseShort(parsedData);
+            } catch (final NumberFormatException exception) {
+                DeluxeMenus.printStacktrace(
+                        "Invalid placeholder data found: " + parsedData + ".",
+                        exception
+                );
+            }
+        }
+
+        resolved.data = data;
+
+        if (this.options.amount() != -1) {
+            resolved.amount = this.options.amount();
+        }
+
+        if (this.options.dynamicAmount().isPresent()) {
+            try {
+                final int dynamicAmount = (int) Double.parseDouble(holder.setPlaceholdersAndArguments(this.options.dynamicAmount().get()));
+                resolved.amount = Math.max(dynamicAmount, 1);
+            } catch (final NumberFormatException ignored) {
+            }
+        }
+
+        if (this.options.customModelData().isPresent() && VersionHelper.IS_CUSTOM_MODEL_DATA) {
+            try {
+                resolved.customModelData = Integer.parseInt(holder.setPlaceholdersAndArguments(this.options.customModelData().get()));
+            } catch (final Exception ignored) {
+            }
+        }
+
+        if (this.options.displayNameTemplate().isPresent()) {
+            resolved.displayName = holder.render(this.options.displayNameTemplate().get());
+        }
+
+        resolved.lore = getMenuItemLore(holder, this.options.loreTemplates());
+
+        if (this.options.trimMaterial().isPresent()) {
+            resolved.trimMaterial = holder.setPlaceholdersAndArguments(this.options.trimMaterial().get());
+        }
+
+        if (this.options.trimPattern().isPresent()) {
+            resolved.trimPattern = holder.setPlaceholdersAndArguments(this.options.trimPattern().get());
+        }
+
+        if (this.options.lightLevel().isPresent()) {
+            resolved.lightLevel = holder.setPlaceholdersAndArguments(this.options.lightLevel().get());
+        }
+
+        if (NbtProvider.isAvailable()) {
+            if (this.options.nbtString().isPresent()) {
+                resolved.nbtString = holder.setPlaceholdersAndArguments(this.options.nbtString().get());
+            }
+
+            if (this.options.nbtInt().isPresent()) {
+                resolved.nbtInt = holder.setPlaceholdersAndArguments(this.options.nbtInt().get());
+            }
+
+            if (!this.options.nbtStrings().isEmpty()) {
+                resolved.nbtStrings = this.options.nbtStrings().stream()
+                        .map(holder::setPlaceholdersAndArguments)
+                        .collect(Collectors.toList());
+            }
+
+            if (!this.options.nbtInts().isEmpty()) {
+                resolved.nbtInts = this.options.nbtInts().stream()
+                        .map(holder::setPlaceholdersAndArguments)
+                        .collect(Collectors.toList());
+            }
+        }
+
+        return resolved;
+    }
+
+    /**
+     * Resolve only the parts of this item refreshed by live updates: the dynamic amount, and the display name and lore
+     * when they contain placeholders. Parts that are not refreshed are left null, and the amount is left at -1.
+     * This is safe to call off the main thread.
+     *
+     * @param holder the holder to resolve the item for
+     * @return the resolved live update
+     */
+    public @NotNull ResolvedItem resolveLiveUpdate(@NotNull final MenuHolder holder) {
+        final ResolvedItem resolved = new ResolvedItem();
+        resolved.lore = null;
+
+        if (this.options.dynamicAmount().isPresent()) {
+            final String parsedAmount = holder.setPlaceholdersAndArguments(this.options.dynamicAmount().get());
+            try {
+                resolved.amount = Math.max((int) Double.parseDouble(parsedAmount), 1);
+            } catch (final NumberFormatException exception) {
+                DeluxeMenus.printStacktrace(
+                        "Something went wrong while updating item in slot " + this.options.slot() +
+                                ". Invalid dynamic amount: " + parsedAmount,
+                        exception
+                );
+            }
+        }
+
+        if (this.options.displayNameHasPlaceholders() && this.options.displayNameTemplate().isPresent()) {
+            resolved.displayName = holder.render(this.options.displayNameTemplate().get());
+        }
+
+        if (this.options.loreHasPlaceholders()) {
+            resolved.lore = getMenuItemLore(holder, this.options.loreTemplates());
+        }
+
+        return resolved;
+    }
+
+    /**
+     * Build the item from its resolved content and mark it as a menu item. Static items are only built once and
+     * handed out as copies of that prototype. Must be called on the main thread.
+     *
+     * @param resolved the content resolved by {@link #resolve(MenuHolder)}
+     * @param holder   the holder the item was resolved for
+     * @return the built and marked item
+     */
+    public @NotNull ItemStack buildMarked(@NotNull final ResolvedItem resolved, @NotNull final MenuHolder holder) {
+        final StaticRender cached = this.staticRender;
+        if (cached == null || cached.content != resolved) {
+            return DeluxeMenus.getInstance().getMenuItemMarker().mark(build(resolved, holder));
+        }
+
+        if (cached.prototype == null) {
+            cached.prototype = DeluxeMenus.getInstance().getMenuItemMarker().mark(build(resolved, holder));
+        }
+
+        return cached.prototype.clone();
+    }
+
+    /**
+     * Build the item from its resolved content. Must be called on the main thread.
+     * <br>
+     * Items with a plain material keep a prototype holding everything that does not depend on the viewer, such as
+     * enchantments, flags, patterns, potion effects and trims. Building such an item copies the prototype and only
+     * applies the resolved amount, data, model data, name, lore, color and NBT to it.
+     *
+     * @param resolved the content resolved by {@link #resolve(MenuHolder)}
+     * @param holder   the holder the item was resolved for
+     * @return the built item
+     */
+    public @NotNull ItemStack build(@NotNull final ResolvedItem resolved, @NotNull final MenuHolder holder) {
+        final ItemStack prototype = resolved.materialOverridden ? null : getPrototype(resolved, holder);
+        if (prototype == null) {
+            return buildFully(resolved, holder);
+        }
+
+        ItemStack itemStack = prototype.clone();
+        if (itemStack.getType() == Material.AIR) {
+            return itemStack;
+        }
+
+        if (resolved.data > 0) {
+            itemStack.setDurability(resolved.data);
+        }
+
+        itemStack.setAmount(Math.min(resolved.amount != -1 ? resolved.amount : 1, 64));
+
+        final ItemMeta itemMeta = itemStack.getItemMeta();
+        if (itemMeta == null) {
+            return itemStack;
+        }
+
+        if (resolved.customModelData != null) {
+            itemMeta.setCustomModelData(resolved.customModelData);
+        }
+
+        if (resolved.displayName != null) {
+            itemMeta.setDisplayName(resolved.displayName);
+        }
+
+        final boolean ignoreLore = this.options.loreAppendMode().orElse(LoreAppendMode.OVERRIDE) == LoreAppendMode.IGNORE
+                || (!this.options.hasLore() && this.options.loreAppendMode().isEmpty());
+        itemMeta.setLore(ignoreLore ? new ArrayList<>() : resolved.lore);
+
+        if (resolved.rgb != null) {
+            applyColor(itemMeta, resolved.rgb);
+        }
+
+        itemStack.setItemMeta(itemMeta);
+
+        return applyNbt(itemStack, resolved);
+    }
+
+    /**
+     * Get the prototype of this item, building it on first use. Only items with a plain material that does not depend
+     * on placeholders have one, and only if their trims and light level are not dynamic either.
+     *
+     * @return the prototype, or null if this item does not have one
+     */
+    private @Nullable ItemStack getPrototype(@NotNull final ResolvedItem resolved, @NotNull final MenuHolder holder) {
+        final Prototype cached = this.prototype;
+        if (cached != null) {
+            return cached.itemStack;
+        }
+
+        ItemStack itemStack = null;
+        if (supportsPrototype(resolved)) {
+            final ResolvedItem base = new ResolvedItem();
+            base.material = resolved.material;
+            base.lowercaseMaterial = resolved.lowercaseMaterial;
+            base.trimMaterial = this.options.trimMaterial().orElse(null);
+            base.trimPattern = this.options.trimPattern().orElse(null);
+            base.lightLevel = this.options.lightLevel().orElse(null);
+            itemStack = buildFully(base, holder);
+        }
+
+        this.prototype = new Prototype(itemStack);
+        return itemStack;
+    }
+
+    private boolean supportsPrototype(@NotNull final ResolvedItem resolved) {
+        if (ItemUtils.isPlaceholderMaterial(this.options.material().toLowerCase(Locale.ROOT)) || resolved.hook != null
+                || ItemUtils.isPlayerItem(resolved.lowercaseMaterial) || ItemUtils.isWaterBottle(resolved.material)
+                || Material.getMaterial(resolved.material.toUpperCase(Locale.ROOT)) == null) {
+            return false;
+        }
+
+        return DeluxeMenusConfig.isStaticText(this.options.trimMaterial().orElse(null))
+                && DeluxeMenusConfig.isStaticText(this.options.trimPattern().orElse(null))
+                && DeluxeMenusConfig.isStaticText(this.options.lightLevel().orElse(null));
+    }
+
+    private void applyColor(@NotNull final ItemMeta itemMeta, @NotNull final String rgb) {
+        final String[] parts = rgb.split(",");
+
+        try {
+            final Color color = Color.fromRGB(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()),
+                    Integer.parseInt(parts[2].trim()));
+
+            if (itemMeta instanceof PotionMeta) {
+                ((PotionMeta) itemMeta).setColor(color);
+            } else if (itemMeta instanceof LeatherArmorMeta) {
+                ((LeatherArmorMeta) itemMeta).setColor(color);
+            } else if (itemMeta instanceof FireworkEffectMeta) {
+                ((FireworkEffectMeta) itemMeta).setEffect(FireworkEffect.builder().withColor(color).build());
+            }
+        } catch (final Exception exception) {
+            if (itemMeta instanceof PotionMeta) {
+                return;
+            }
+
+            DeluxeMenus.printStacktrace(
+                    "Invalid rgb colors found: " + rgb,
+                    exception
+            );
+        }
+    }
+
+    private @NotNull ItemStack buildFully(@NotNull final ResolvedItem resolved, @NotNull final MenuHolder holder) {
+        final Player viewer = holder.getViewer();
+
+        ItemStack itemStack = null;
+        int amount = 1;
+
+        final String stringMaterial = resolved.material;
+        final String lowercaseStringMaterial = resolved.lowercaseMaterial;
+
         if (ItemUtils.isPlayerItem(lowercaseStringMaterial)) {
             final ItemStack playerItem = INVENTORY_ITEM_ACCESSORS.get(lowercaseStringMaterial).apply(viewer.getInventory());
 
@@ -83,15 +401,8 @@ public class MenuItem {
 
         final int temporaryAmount = amount;
 
-        final String finalMaterial = lowercaseStringMaterial;
-        final ItemHook pluginHook = DeluxeMenus.getInstance().getItemHooks().values()
-            .stream()
-            .filter(x -> finalMaterial.startsWith(x.getPrefix()))
-            .findFirst()
-            .orElse(null);
-
-        if (pluginHook != null) {
-            itemStack = pluginHook.getItem(holder.setPlaceholdersAndArguments(stringMaterial.substring(pluginHook.getPrefix().length())));
+        if (resolved.hook != null) {
+            itemStack = resolved.hook.getItem(resolved.hookArguments);
         }
 
         if (ItemUtils.isWaterBottle(stringMaterial)) {
@@ -147,9 +458,8 @@ public class MenuItem {
             final PotionMeta meta = (PotionMeta) itemStack.getItemMeta();
 
             if (meta != null) {
-                if (this.options.rgb().isPresent()) {
-                    final String rgbString = holder.setPlaceholdersAndArguments(this.options.rgb().get());
-                    final String[] parts = rgbString.split(",");
+                if (resolved.rgb != null) {
+                    final String[] parts = resolved.rgb.split(",");
 
                     try {
                         meta.setColor(Color.fromRGB(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()),
@@ -172,34 +482,12 @@ public class MenuItem {
             return itemStack;
         }
 
-        short data = this.options.data();
-
-        if (this.options.placeholderData().isPresent()) {
-            final String parsedData = holder.setPlaceholdersAndArguments(this.options.placeholderData().get());
-            try {
-                data = Short.parseShort(parsedData);
-            } catch (final NumberFormatException exception) {
-                DeluxeMenus.printStacktrace(
-                        "Invalid placeholder data found: " + parsedData + ".",
-                        exception
-                );
-            }
+        if (resolved.data > 0) {
+            itemStack.setDurability(resolved.data);
         }
 
-        if (data > 0) {
-            itemStack.setDurability(data);
-        }
-
-        if (this.options.amount() != -1) {
-            amount = this.options.amount();
-        }
-
-        if (this.options.dynamicAmount().isPresent()) {
-            try {
-                final int dynamicAmount = (int) Double.parseDouble(holder.setPlaceholdersAndArguments(this.options.dynamicAmount().get()));
-                amount = Math.max(dynamicAmount, 1);
-            } catch (final NumberFormatException ignored) {
-            }
+        if (resolved.amount != -1) {
+            amount = resolved.amount;
         }
 
         if (amount > 64) {
@@ -213,17 +501,12 @@ public class MenuItem {
             return itemStack;
         }
 
-        if (this.options.customModelData().isPresent() && VersionHelper.IS_CUSTOM_MODEL_DATA) {
-            try {
-                final int modelData = Integer.parseInt(holder.setPlaceholdersAndArguments(this.options.customModelData().get()));
-                itemMeta.setCustomModelData(modelData);
-            } catch (final Exception ignored) {
-            }
+        if (resolved.customModelData != null) {
+            itemMeta.setCustomModelData(resolved.customModelData);
         }
 
-        if (this.options.displayName().isPresent()) {
-            final String displayName = holder.setPlaceholdersAndArguments(this.options.displayName().get());
-            itemMeta.setDisplayName(StringUtils.color(displayName));
+        if (resolved.displayName != null) {
+            itemMeta.setDisplayName(resolved.displayName);
         }
 
         List<String> lore = new ArrayList<>();
@@ -238,15 +521,15 @@ public class MenuItem {
                 lore.addAll(itemLore);
                 break;
             case TOP: // DM lore is added at the top
-                lore.addAll(getMenuItemLore(holder, this.options.lore()));
+                lore.addAll(resolved.lore);
                 lore.addAll(itemLore);
                 break;
             case BOTTOM: // DM lore is bottom at the bottom
                 lore.addAll(itemLore);
-                lore.addAll(getMenuItemLore(holder, this.options.lore()));
+                lore.addAll(resolved.lore);
                 break;
             case OVERRIDE: // Lore from DM overrides the lore from the item
-                lore.addAll(getMenuItemLore(holder, this.options.lore()));
+                lore.addAll(resolved.lore);
                 break;
         }
 
@@ -261,8 +544,8 @@ public class MenuItem {
             final Optional<String> trimPatternName = this.options.trimPattern();
 
             if (trimMaterialName.isPresent() && trimPatternName.isPresent()) {
-                final TrimMaterial trimMaterial = Registry.TRIM_MATERIAL.match(holder.setPlaceholdersAndArguments(trimMaterialName.get()));
-                final TrimPattern trimPattern = Registry.TRIM_PATTERN.match(holder.setPlaceholdersAndArguments(trimPatternName.get()));
+                final TrimMaterial trimMaterial = Registry.TRIM_MATERIAL.match(resolved.trimMaterial);
+                final TrimPattern trimPattern = Registry.TRIM_PATTERN.match(resolved.trimPattern);
 
                 if (trimMaterial != null && trimPattern != null) {
                     final ArmorTrim armorTrim = new ArmorTrim(trimMaterial, trimPattern);
@@ -301,9 +584,8 @@ public class MenuItem {
             }
         }
 
-        if (itemMeta instanceof LeatherArmorMeta && this.options.rgb().isPresent()) {
-            final String rgbString = holder.setPlaceholdersAndArguments(this.options.rgb().get());
-            final String[] parts = rgbString.split(",");
+        if (itemMeta instanceof LeatherArmorMeta && resolved.rgb != null) {
+            final String[] parts = resolved.rgb.split(",");
             final LeatherArmorMeta leatherArmorMeta = (LeatherArmorMeta) itemMeta;
 
             try {
@@ -317,9 +599,8 @@ public class MenuItem {
                         exception
                 );
             }
-        } else if (itemMeta instanceof FireworkEffectMeta && this.options.rgb().isPresent()) {
-            final String rgbString = holder.setPlaceholdersAndArguments(this.options.rgb().get());
-            final String[] parts = rgbString.split(",");
+        } else if (itemMeta instanceof FireworkEffectMeta && resolved.rgb != null) {
+            final String[] parts = resolved.rgb.split(",");
             final FireworkEffectMeta fireworkEffectMeta = (FireworkEffectMeta) itemMeta;
 
             try {
@@ -354,12 +635,12 @@ public class MenuItem {
             this.options.enchantments().forEach((enchantment, level) -> itemMeta.addEnchant(enchantment, level, true));
         }
 
-        if (this.options.lightLevel().isPresent() && itemMeta instanceof BlockDataMeta) {
+        if (resolved.lightLevel != null && itemMeta instanceof BlockDataMeta) {
             final BlockDataMeta blockDataMeta = (BlockDataMeta) itemStack.getItemMeta();
             final BlockData blockData = blockDataMeta.getBlockData(itemStack.getType());
             if (blockData instanceof Light) {
                 final Light light = (Light) blockData;
-                final String parsedLightLevel = holder.setPlaceholdersAndArguments(this.options.lightLevel().get());
+                final String parsedLightLevel = resolved.lightLevel;
                 try {
                     final int lightLevel = Math.min(Integer.parseInt(parsedLightLevel), light.getMaximumLevel());
                     light.setLevel(Math.max(lightLevel, 0));
@@ -401,33 +682,35 @@ public class MenuItem {
 
         itemStack.setItemMeta(itemMeta);
 
+        return applyNbt(itemStack, resolved);
+    }
+
+    private @NotNull ItemStack applyNbt(@NotNull ItemStack itemStack, @NotNull final ResolvedItem resolved) {
         if (NbtProvider.isAvailable()) {
-            if (this.options.nbtString().isPresent()) {
-                final String tag = holder.setPlaceholdersAndArguments(this.options.nbtString().get());
+            if (resolved.nbtString != null) {
+                final String tag = resolved.nbtString;
                 if (tag.contains(":")) {
                     final String[] parts = tag.split(":", 2);
                     itemStack = NbtProvider.setString(itemStack, parts[0], parts[1]);
                 }
             }
 
-            if (this.options.nbtInt().isPresent()) {
-                final String tag = holder.setPlaceholdersAndArguments(this.options.nbtInt().get());
+            if (resolved.nbtInt != null) {
+                final String tag = resolved.nbtInt;
                 if (tag.contains(":")) {
                     final String[] parts = tag.split(":");
                     itemStack = NbtProvider.setInt(itemStack, parts[0], Integer.parseInt(parts[1]));
                 }
             }
 
-            for (String nbtTag : this.options.nbtStrings()) {
-                final String tag = holder.setPlaceholdersAndArguments(nbtTag);
+            for (String tag : resolved.nbtStrings) {
                 if (tag.contains(":")) {
                     final String[] parts = tag.split(":", 2);
                     itemStack = NbtProvider.setString(itemStack, parts[0], parts[1]);
                 }
             }
 
-            for (String nbtTag : this.options.nbtInts()) {
-                final String tag = holder.setPlaceholdersAndArguments(nbtTag);
+            for (String tag : resolved.nbtInts) {
                 if (tag.contains(":")) {
                     final String[] parts = tag.split(":");
                     itemStack = NbtProvider.setInt(itemStack, parts[0], Integer.parseInt(parts[1]));
@@ -463,10 +746,9 @@ public class MenuItem {
                 .map(itemHook -> itemHook.getItem(args));
     }
 
-    private List<String> getMenuItemLore(@NotNull final MenuHolder holder, @NotNull final List<String> lore) {
+    private List<String> getMenuItemLore(@NotNull final MenuHolder holder, @NotNull final List<StringTemplate> lore) {
         return lore.stream()
-                .map(holder::setPlaceholdersAndArguments)
-                .map(StringUtils::color)
+                .map(holder::render)
                 .map(line -> line.split("\n"))
                 .flatMap(Arrays::stream)
                 .map(line -> line.split("\\\\n"))
@@ -477,4 +759,22 @@ public class MenuItem {
     public @NotNull MenuItemOptions options() {
         return options;
     }
+
+    private static final class StaticRender {
+        private final ResolvedItem content;
+        // Built lazily on the main thread
+        private ItemStack prototype;
+
+        private StaticRender(final @NotNull ResolvedItem content) {
+            this.content = content;
+        }
+    }
+
+    private static final class Prototype {
+        private final ItemStack itemStack;
+
+        private Prototype(final @Nullable ItemStack itemStack) {
+            this.itemStack = itemStack;
+        }
+    }
 }
@@ -0,0 +1,157 @@
+package com.extendedclip.deluxemenus.menu;
+
+import com.extendedclip.deluxemenus.DeluxeMenus;
+import com.extendedclip.deluxemenus.requirement.RequirementList;
+import com.extendedclip.deluxemenus.utils.DebugLevel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+
+/**
+ * The compiled, immutable item layout of a {@link Menu}.
+ * <br>
+ * For every slot it holds the candidate items ordered by priority, along with their view requirements. A candidate
+ * without view requirements always matches, so the candidates behind it are dropped when the layout is compiled.
+ */
+public final class MenuLayout {
+
+    private final MenuItem[][] candidates;
+    // A null entry means the candidate has no view requirements and always matches
+    private final RequirementList[][] viewRequirements;
+    private final int[] occupiedSlots;
+
+    private MenuLayout(final MenuItem[][] candidates, final RequirementList[][] viewRequirements) {
+        this.candidates = candidates;
+        this.viewRequirements = viewRequirements;
+
+        int occupied = 0;
+        for (MenuItem[] slotCandidates : candidates) {
+            if (slotCandidates != null) {
+                occupied++;
+            }
+        }
+
+        this.occupiedSlots = new int[occupied];
+        int index = 0;
+        for (int slot = 0; slot < candidates.length; slot++) {
+            if (candidates[slot] != null) {
+                occupiedSlots[index++] = slot;
+            }
+        }
+    }
+
+    /**
+     * Compile the items of a menu into a layout. Items placed outside the menu are reported and left out.
+     *
+     * @param menuName the name of the menu, used for logging
+     * @param size     the size of the menu
+     * @param items    the items of the menu, by slot and priority
+     * @return the compiled layout
+     */
+    public static @NotNull MenuLayout compile(final @NotNull String menuName, final int size,
+                                              final @NotNull Map<Integer, TreeMap<Integer, MenuItem>> items) {
+        final MenuItem[][] candidates = new MenuItem[size][];
+        final RequirementList[][] viewRequirements = new RequirementList[size][];
+
+        for (Map.Entry<Integer, TreeMap<Integer, MenuItem>> entry : items.entrySet()) {
+            final int slot = entry.getKey();
+
+            if (slot < 0 || slot >= size) {
+                DeluxeMenus.debug(
+                        DebugLevel.HIGHEST,
+                        Level.WARNING,
+                        "Item set to slot " + slot + " for menu: " + menuName + " exceeds the inventory size!",
+                        "This item will not be added to the menu!"
+                );
+                continue;
+            }
+
+            final List<MenuItem> slotCandidates = new ArrayList<>();
+            final List<RequirementList> slotRequirements = new ArrayList<>();
+
+            for (MenuItem item : entry.getValue().values()) {
+                final RequirementList requirements = item.options().viewRequirements().orElse(null);
+                slotCandidates.add(item);
+                slotRequirements.add(requirements);
+
+                if (requirements == null) {
+                    break;
+                }
+            }
+
+            if (slotCandidates.isEmpty()) {
+                continue;
+            }
+
+            candidates[slot] = slotCandidates.toArray(new MenuItem[0]);
+            viewRequirements[slot] = slotRequirements.toArray(new RequirementList[0]);
+        }
+
+        return new MenuLayout(candidates, viewRequirements);
+    }
+
+    /**
+     * Find the item that should be shown to the holder in the given slot.
+     *
+     * @param slot   the raw slot
+     * @param holder the holder to evaluate view requirements for
+     * @return the first candidate whose view requirements pass, or null if there is none
+     */
+    public @Nullable MenuItem resolve(final int slot, final @NotNull MenuHolder holder) {
+        if (slot < 0 || slot >= candidates.length) {
+            return null;
+        }
+
+        final MenuItem[] slotCandidates = candidates[slot];
+        if (slotCandidates == null) {
+            return null;
+        }
+
+        final RequirementList[] slotRequirements = viewRequirements[slot];
+        for (int i = 0; i < slotCandidates.length; i++) {
+            if (slotRequirements[i] == null || slotRequirements[i].evaluate(holder)) {
+                return slotCandidates[i];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Find the items that should be shown to the holder.
+     *
+     * @param holder the holder to evaluate view requirements for
+     * @return the visible items indexed by raw slot, sized to the menu. Empty slots are null.
+     */
+    public @NotNull MenuItem[] resolve(final @NotNull MenuHolder holder) {
+        final MenuItem[] resolved = new MenuItem[candidates.length];
+        for (int slot : occupiedSlots) {
+            resolved[slot] = resolve(slot, holder);
+        }
+        return resolved;
+    }
+
+    /**
+     * @param slot the raw slot
+     * @return the candidates of the slot ordered by priority, empty if the slot has none
+     */
+    public @NotNull List<MenuItem> getCandidates(final int slot) {
+        if (slot < 0 || slot >= candidates.length || candidates[slot] == null) {
+            return List.of();
+        }
+        return List.of(candidates[slot]);
+    }
+
+    public int size() {
+        return candidates.length;
+    }
+
+    public boolean isEmpty() {
+        return occupiedSlots.length == 0;
+    }
+}
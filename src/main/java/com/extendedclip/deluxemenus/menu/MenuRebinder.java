@@ -0,0 +1,124 @@
+package com.extendedclip.deluxemenus.menu;
+
+import com.extendedclip.deluxemenus.DeluxeMenus;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Moves the viewers of a reloaded menu to its new definition without closing their menus, see {@link Menu#detach}.
+ * <br>
+ * The viewers are queued and rebound a few per tick, so a reload does not render every open menu in the same tick.
+ * Viewers of a menu that was not loaded again have their menu closed right away. The queue is only accessed from the
+ * main thread.
+ */
+public final class MenuRebinder {
+
+    public static final int DEFAULT_PER_TICK = 20;
+
+    private final DeluxeMenus plugin;
+    private final Deque<Pending> queue = new ArrayDeque<>();
+
+    private BukkitTask task;
+    private int perTick = DEFAULT_PER_TICK;
+    private long rebound = 0;
+
+    public MenuRebinder(final @NotNull DeluxeMenus plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * @param perTick the maximum amount of viewers to rebind on a single tick
+     */
+    public void setPerTick(final int perTick) {
+        this.perTick = Math.max(1, perTick);
+    }
+
+    /**
+     * Queue the viewers of a detached menu to be rebound to the menu loaded in its place. Must be called on the main
+     * thread, once the new definition of the menu is loaded or failed to load.
+     *
+     * @param previous the detached menu
+     */
+    public void rebind(final @NotNull Menu previous) {
+        final Optional<Menu> current = Menu.getMenuByName(previous.options().name());
+        Menu.rebindLastMenus(previous, current.orElse(null));
+
+        for (MenuHolder holder : List.copyOf(Menu.getMenuHolders(previous.options().name()))) {
+            if (current.isEmpty()) {
+                Menu.closeMenu(holder.getViewer(), true);
+                continue;
+            }
+
+            queue.add(new Pending(holder, previous));
+        }
+
+        if (task == null && !queue.isEmpty()) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+
+        queue.clear();
+    }
+
+    private void tick() {
+        for (int i = 0; i < perTick && !queue.isEmpty(); i++) {
+            final Pending pending = queue.poll();
+            final MenuHolder holder = pending.holder;
+
+            // The viewer closed the menu or opened another one since the reload
+            if (Menu.getMenuHolder(holder.getViewer()).orElse(null) != holder) {
+                continue;
+            }
+
+            final Optional<Menu> menu = holder.getMenu();
+            if (menu.isEmpty()) {
+                Menu.closeMenu(holder.getViewer(), true);
+                continue;
+            }
+
+            menu.get().rebind(holder, pending.previous);
+            rebound++;
+        }
+
+        if (queue.isEmpty()) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * @return the amount of viewers waiting to be rebound
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * @return the amount of viewers rebound to a reloaded menu since the plugin was enabled
+     */
+    public long getReboundCount() {
+        return rebound;
+    }
+
+    private static final class Pending {
+        private final MenuHolder holder;
+        private final Menu previous;
+
+        private Pending(final @NotNull MenuHolder holder, final @NotNull Menu previous) {
+            this.holder = holder;
+            this.previous = previous;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.extendedclip.deluxemenus.menu;
+
+import org.bukkit.inventory.Inventory;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * The resolved content of a menu for a single {@link MenuHolder}.
+ * <br>
+ * Rendering a menu happens in two stages. {@link #resolve(MenuLayout, int, MenuHolder)} evaluates view requirements,
+ * placeholders and arguments and may run on any thread. {@link #apply(MenuHolder, Inventory, MenuRenderStats)} builds
+ * the item stacks and writes them to the inventory, and must run on the main thread.
+ */
+public final class MenuRenderPlan {
+
+    private final MenuItem[] items;
+    private final ResolvedItem[] resolved;
+    private final boolean empty;
+
+    private MenuRenderPlan(final @NotNull MenuItem[] items, final @NotNull ResolvedItem[] resolved, final boolean empty) {
+        this.items = items;
+        this.resolved = resolved;
+        this.empty = empty;
+    }
+
+    /**
+     * Resolve the content of every slot of a menu for a holder. Safe to call off the main thread.
+     *
+     * @param layout the layout of the menu
+     * @param size   the amount of slots to resolve
+     * @param holder the holder to resolve the menu for
+     * @return the resolved plan
+     */
+    public static @NotNull MenuRenderPlan resolve(final @NotNull MenuLayout layout, final int size,
+                                                  final @NotNull MenuHolder holder) {
+        final MenuItem[] items = new MenuItem[size];
+        final ResolvedItem[] resolved = new ResolvedItem[size];
+        boolean empty = true;
+
+        for (int slot = 0; slot < size; slot++) {
+            final MenuItem item = layout.resolve(slot, holder);
+            if (item == null) {
+                continue;
+            }
+
+            items[slot] = item;
+            resolved[slot] = item.resolve(holder);
+            empty = false;
+        }
+
+        return new MenuRenderPlan(items, resolved, empty);
+    }
+
+    /**
+     * Build the resolved items and write them to the inventory, with the {@link ItemOverrides} of the holder applied.
+     * Slots whose item and resolved content did not change since they were last written are skipped, and slots without
+     * an item are cleared.
+     * Must be called on the main thread.
+     *
+     * @param holder    the holder the plan was resolved for
+     * @param inventory the inventory to write to
+     * @param stats     the stats to record the written and skipped slots to
+     */
+    public void apply(final @NotNull MenuHolder holder, final @NotNull Inventory inventory,
+                      final @NotNull MenuRenderStats stats) {
+        final int size = Math.min(items.length, inventory.getSize());
+        final ResolvedItem[] rendered = new ResolvedItem[size];
+        final ResolvedItem[] content = Arrays.copyOf(resolved, size);
+        int written = 0;
+        int skipped = 0;
+
+        for (int slot = 0; slot < size; slot++) {
+            final MenuItem previous = holder.getItem(slot);
+            final ResolvedItem previousContent = holder.getRenderedContent(slot);
+
+            if (items[slot] == null) {
+                if (previous == null && previousContent == null) {
+                    continue;
+                }
+
+                inventory.setItem(slot, null);
+                written++;
+                continue;
+            }
+
+            final ResolvedItem overridden = holder.getItemOverrides().apply(slot, resolved[slot]);
+            rendered[slot] = overridden;
+
+            if (previous == items[slot] && overridden.hasSameContent(previousContent)) {
+                skipped++;
+                continue;
+            }
+
+            inventory.setItem(slot, items[slot].buildMarked(overridden, holder));
+            written++;
+        }
+
+        holder.setRenderedContent(rendered, content);
+        stats.record(written, skipped);
+    }
+
+    /**
+     * @return the visible items indexed by raw slot. Empty slots are null.
+     */
+    public @NotNull MenuItem[] getItems() {
+        return items;
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+}
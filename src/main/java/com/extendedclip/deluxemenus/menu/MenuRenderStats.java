@@ -0,0 +1,31 @@
+package com.extendedclip.deluxemenus.menu;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the inventory slots written and skipped while rendering a {@link Menu}. A slot is skipped when its resolved
+ * content did not change since it was last written.
+ */
+public final class MenuRenderStats {
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    public void record(final int written, final int skipped) {
+        this.written.add(written);
+        this.skipped.add(skipped);
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    public void reset() {
+        written.reset();
+        skipped.reset();
+    }
+}
@@ -0,0 +1,222 @@
+package com.extendedclip.deluxemenus.menu;
+
+import com.extendedclip.deluxemenus.DeluxeMenus;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides which open menus have their live placeholders updated on every tick, from a single repeating task.
+ * <br>
+ * Holders are kept in a hashed timing wheel per update period. A wheel has one bucket per tick of its period and new
+ * holders are spread over the buckets round-robin, so the holders sharing an update interval are due a few at a time
+ * on every tick instead of all at once. The wheels only pick the holders that are due: each of them is updated in its
+ * own async task, so a slow placeholder only delays the menu it is used in.
+ * <br>
+ * The task only runs while holders are registered, and a wheel is dropped once its last holder is unregistered.
+ */
+public final class MenuUpdateScheduler {
+
+    private static final int TICKS_PER_SECOND = 20;
+
+    private final DeluxeMenus plugin;
+    private final Map<Integer, Wheel> wheels = new ConcurrentHashMap<>();
+    private final Map<MenuHolder, Registration> registrations = new ConcurrentHashMap<>();
+    // The holders whose update was handed off and did not finish yet
+    private final Set<MenuHolder> inFlight = ConcurrentHashMap.newKeySet();
+    private final int[] refreshedPerTick = new int[TICKS_PER_SECOND];
+
+    // The async timer is started again on schedule even if its previous run did not finish yet: the ticks are counted
+    // on every run, and only one run at a time picks the due holders, catching up on the ticks the others counted.
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicBoolean picking = new AtomicBoolean();
+    private long picked = 0;
+
+    private BukkitTask task;
+    private volatile int lastRefreshed = 0;
+    private volatile int peakRefreshed = 0;
+
+    public MenuUpdateScheduler(final @NotNull DeluxeMenus plugin) {
+        this.plugin = plugin;
+    }
+
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+
+        wheels.clear();
+        registrations.clear();
+        inFlight.clear();
+    }
+
+    /**
+     * Register a holder to have its placeholders updated. If the holder is already registered, it is moved to the
+     * wheel of the new interval.
+     *
+     * @param holder          the holder to update
+     * @param intervalSeconds the update interval in seconds
+     */
+    public synchronized void register(final @NotNull MenuHolder holder, final int intervalSeconds) {
+        unregister(holder);
+
+        final int period = Math.max(1, intervalSeconds) * TICKS_PER_SECOND;
+        final Wheel wheel = wheels.computeIfAbsent(period, Wheel::new);
+        final int bucket = wheel.add(holder);
+        registrations.put(holder, new Registration(wheel, bucket));
+
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    public synchronized void unregister(final @NotNull MenuHolder holder) {
+        final Registration registration = registrations.remove(holder);
+        if (registration == null) {
+            return;
+        }
+
+        if (registration.wheel.remove(holder, registration.bucket)) {
+            wheels.remove(registration.wheel.period, registration.wheel);
+        }
+
+        if (registrations.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    public boolean isRegistered(final @NotNull MenuHolder holder) {
+        return registrations.containsKey(holder);
+    }
+
+    private void tick() {
+        final long target = ticks.incrementAndGet();
+        if (!picking.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            while (picked < target) {
+                pick(picked++);
+            }
+        } finally {
+            picking.set(false);
+        }
+    }
+
+    private void pick(final long currentTick) {
+        int refreshed = 0;
+
+        for (Wheel wheel : wheels.values()) {
+            final Set<MenuHolder> bucket = wheel.buckets[(int) (currentTick % wheel.period)];
+
+            for (MenuHolder holder : bucket) {
+                // The previous update of the holder is still resolving its placeholders
+                if (!inFlight.add(holder)) {
+                    continue;
+                }
+
+                Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> update(holder));
+                refreshed++;
+            }
+        }
+
+        refreshedPerTick[(int) (currentTick % TICKS_PER_SECOND)] = refreshed;
+        lastRefreshed = refreshed;
+        if (refreshed > peakRefreshed) {
+            peakRefreshed = refreshed;
+        }
+    }
+
+    private void update(final @NotNull MenuHolder holder) {
+        try {
+            holder.updatePlaceholders();
+        } finally {
+            inFlight.remove(holder);
+        }
+    }
+
+    /**
+     * @return the amount of holders currently registered for live updates
+     */
+    public int getRegisteredCount() {
+        return registrations.size();
+    }
+
+    /**
+     * @return the amount of holders handed off to be updated during the last tick
+     */
+    public int getLastRefreshedCount() {
+        return lastRefreshed;
+    }
+
+    /**
+     * @return the amount of holders handed off to be updated during the last second (20 ticks)
+     */
+    public int getRefreshedLastSecond() {
+        int total = 0;
+        for (int refreshed : refreshedPerTick) {
+            total += refreshed;
+        }
+        return total;
+    }
+
+    /**
+     * @return the highest amount of holders handed off to be updated during a single tick since the plugin was enabled
+     */
+    public int getPeakRefreshedCount() {
+        return peakRefreshed;
+    }
+
+    private static final class Wheel {
+        private final int period;
+        private final Set<MenuHolder>[] buckets;
+        private int next = 0;
+        private int size = 0;
+
+        @SuppressWarnings("unchecked")
+        private Wheel(final int period) {
+            this.period = period;
+            this.buckets = new Set[period];
+            for (int i = 0; i < period; i++) {
+                buckets[i] = ConcurrentHashMap.newKeySet();
+            }
+        }
+
+        private synchronized int add(final @NotNull MenuHolder holder) {
+            final int bucket = next;
+            next = (next + 1) % period;
+            buckets[bucket].add(holder);
+            size++;
+            return bucket;
+        }
+
+        /**
+         * @return true if the wheel is empty now
+         */
+        private synchronized boolean remove(final @NotNull MenuHolder holder, final int bucket) {
+            if (buckets[bucket].remove(holder)) {
+                size--;
+            }
+            return size == 0;
+        }
+    }
+
+    private static final class Registration {
+        private final Wheel wheel;
+        private final int bucket;
+
+        private Registration(final @NotNull Wheel wheel, final int bucket) {
+            this.wheel = wheel;
+            this.bucket = bucket;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.extendedclip.deluxemenus.menu;
+
+import com.extendedclip.deluxemenus.utils.StringUtils;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memoizes the placeholders resolved for a {@link MenuHolder} during a single open, refresh or live update pass, so
+ * that a placeholder used by many items and requirements is only sent to PlaceholderAPI once per pass. The inventory
+ * of the viewer is read once per pass as well, see {@link InventorySnapshot}.
+ * <br>
+ * A scope is started with {@link MenuHolder#beginRenderScope()} and discarded when the pass ends.
+ */
+public final class RenderScope {
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+    private volatile InventorySnapshot inventorySnapshot;
+    private int depth = 1;
+
+    RenderScope() {
+    }
+
+    /**
+     * Replace the placeholders in a string, reusing the values already resolved in this scope.
+     *
+     * @param input  the string to replace the placeholders in
+     * @param player the player to resolve the placeholders for
+     * @return the string with its placeholders replaced
+     */
+    public @NotNull String replacePlaceholders(final @NotNull String input, final @NotNull Player player) {
+        if (input.indexOf('%') == -1) {
+            return input;
+        }
+
+        final String replaced = StringUtils.replaceEachPlaceholder(input, placeholder -> resolve(placeholder, player));
+        // Stray placeholder characters, let PlaceholderAPI see the whole string
+        return replaced != null ? replaced : resolve(input, player);
+    }
+
+    private @NotNull String resolve(final @NotNull String text, final @NotNull Player player) {
+        final String cached = values.get(text);
+        if (cached != null) {
+            HITS.increment();
+            return cached;
+        }
+
+        MISSES.increment();
+        final String resolved = StringUtils.replacePlaceholders(text, player);
+        values.put(text, resolved);
+        return resolved;
+    }
+
+    /**
+     * @param player the viewer of the holder
+     * @return the inventory of the viewer, read once per scope
+     */
+    @NotNull InventorySnapshot getInventorySnapshot(final @NotNull Player player) {
+        InventorySnapshot snapshot = this.inventorySnapshot;
+        if (snapshot == null) {
+            snapshot = new InventorySnapshot(player);
+            this.inventorySnapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    synchronized void enter() {
+        depth++;
+    }
+
+    /**
+     * @return true if this was the outermost pass and the scope should be discarded
+     */
+    synchronized boolean exit() {
+        return --depth <= 0;
+    }
+
+    /**
+     * @return the amount of placeholders served from a render scope since the plugin was enabled
+     */
+    public static long getHits() {
+        return HITS.sum();
+    }
+
+    /**
+     * @return the amount of placeholders sent to PlaceholderAPI from a render scope since the plugin was enabled
+     */
+    public static long getMisses() {
+        return MISSES.sum();
+    }
+}
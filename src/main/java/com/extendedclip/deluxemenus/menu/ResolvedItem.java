@@ -0,0 +1,165 @@
+package com.extendedclip.deluxemenus.menu;
+
+import com.extendedclip.deluxemenus.hooks.ItemHook;
+import com.extendedclip.deluxemenus.utils.ItemUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * The content of a {@link MenuItem} resolved for a single {@link MenuHolder}: every placeholder, argument and number
+ * the item depends on, without any Bukkit item state.
+ * <br>
+ * Resolving is safe to do off the main thread. The resolved item is then turned into an
+ * {@link org.bukkit.inventory.ItemStack} on the main thread by {@link MenuItem#build(ResolvedItem, MenuHolder)}.
+ * Instances are filled in by {@link MenuItem#resolve(MenuHolder)} and are not modified afterwards.
+ * <br>
+ * The resolved content doubles as the fingerprint of a rendered slot: if the content resolved for a slot is the same
+ * as the content last written to it, the slot does not need to be written again.
+ */
+public final class ResolvedItem {
+
+    String material;
+    String lowercaseMaterial;
+    // Set when the material was replaced by an override, in which case the prototype of the item does not apply
+    boolean materialOverridden;
+    ItemHook hook;
+    String hookArguments;
+    // -1 means the amount of the source item is kept
+    int amount = -1;
+    short data;
+    Integer customModelData;
+    String displayName;
+    List<String> lore = List.of();
+    String rgb;
+    String trimMaterial;
+    String trimPattern;
+    String lightLevel;
+    String nbtString;
+    String nbtInt;
+    List<String> nbtStrings = List.of();
+    List<String> nbtInts = List.of();
+
+    ResolvedItem() {
+    }
+
+    public @NotNull String getMaterial() {
+        return material;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public @Nullable Integer getCustomModelData() {
+        return customModelData;
+    }
+
+    public @Nullable String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @return the resolved lore, or null for a live update that does not refresh the lore
+     */
+    public @Nullable List<String> getLore() {
+        return lore;
+    }
+
+    /**
+     * Check if this item renders the same as another one. Items copied from the viewer's inventory never do, as
+     * their content is not part of the resolved item.
+     *
+     * @param other the item to compare with
+     * @return true if both items render the same item stack
+     */
+    public boolean hasSameContent(final @Nullable ResolvedItem other) {
+        if (other == null || ItemUtils.isPlayerItem(lowercaseMaterial)) {
+            return false;
+        }
+
+        return amount == other.amount
+                && data == other.data
+                && Objects.equals(material, other.material)
+                && hook == other.hook
+                && Objects.equals(hookArguments, other.hookArguments)
+                && Objects.equals(customModelData, other.customModelData)
+                && Objects.equals(displayName, other.displayName)
+                && Objects.equals(lore, other.lore)
+                && Objects.equals(rgb, other.rgb)
+                && Objects.equals(trimMaterial, other.trimMaterial)
+                && Objects.equals(trimPattern, other.trimPattern)
+                && Objects.equals(lightLevel, other.lightLevel)
+                && Objects.equals(nbtString, other.nbtString)
+                && Objects.equals(nbtInt, other.nbtInt)
+                && Objects.equals(nbtStrings, other.nbtStrings)
+                && Objects.equals(nbtInts, other.nbtInts);
+    }
+
+    /**
+     * Copy this item with the parts refreshed by a live update applied on top of it.
+     *
+     * @param update the live update, as resolved by {@link MenuItem#resolveLiveUpdate(MenuHolder)}
+     * @return the updated copy
+     */
+    @NotNull ResolvedItem withLiveUpdate(final @NotNull ResolvedItem update) {
+        final ResolvedItem copy = copy();
+        copy.amount = update.amount != -1 ? update.amount : amount;
+        copy.displayName = update.displayName != null ? update.displayName : displayName;
+        copy.lore = update.lore != null ? update.lore : lore;
+        return copy;
+    }
+
+    /**
+     * Copy this item with the overrides of its slot applied on top of it, see {@link ItemOverrides}.
+     *
+     * @param material    the overridden material, null to keep the resolved one
+     * @param displayName the overridden display name, null to keep the resolved one
+     * @param lore        the overridden lore, null to keep the resolved one
+     * @return the overridden copy
+     */
+    @NotNull ResolvedItem withOverride(final @Nullable String material, final @Nullable String displayName,
+                                       final @Nullable List<String> lore) {
+        final ResolvedItem copy = copy();
+        if (material != null) {
+            copy.material = material;
+            copy.lowercaseMaterial = material.toLowerCase(Locale.ROOT);
+            copy.hook = null;
+            copy.hookArguments = null;
+            copy.materialOverridden = true;
+        }
+        if (displayName != null) {
+            copy.displayName = displayName;
+        }
+        if (lore != null) {
+            copy.lore = lore;
+        }
+        return copy;
+    }
+
+    private @NotNull ResolvedItem copy() {
+        final ResolvedItem copy = new ResolvedItem();
+        copy.material = material;
+        copy.lowercaseMaterial = lowercaseMaterial;
+        copy.materialOverridden = materialOverridden;
+        copy.hook = hook;
+        copy.hookArguments = hookArguments;
+        copy.amount = amount;
+        copy.data = data;
+        copy.customModelData = customModelData;
+        copy.displayName = displayName;
+        copy.lore = lore;
+        copy.rgb = rgb;
+        copy.trimMaterial = trimMaterial;
+        copy.trimPattern = trimPattern;
+        copy.lightLevel = lightLevel;
+        copy.nbtString = nbtString;
+        copy.nbtInt = nbtInt;
+        copy.nbtStrings = nbtStrings;
+        copy.nbtInts = nbtInts;
+        return copy;
+    }
+}
@@ -1,19 +0,0 @@
-package com.extendedclip.deluxemenus.menu;
-
-import java.util.ArrayList;
-import java.util.List;
-
-public class SetHolder {
-    public List<Integer> material = new ArrayList<>();
-    public List<Integer> name = new ArrayList<>();
-    public List<Integer> lore = new ArrayList<>();
-
-    @Override
-    public String toString() {
-        return "SetHolder{" +
-                "material=" + material +
-                ", name=" + name +
-                ", lore=" + lore +
-                '}';
-    }
-}
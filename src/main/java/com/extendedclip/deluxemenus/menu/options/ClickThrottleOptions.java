@@ -0,0 +1,114 @@
+package com.extendedclip.deluxemenus.menu.options;
+
+import org.bukkit.event.inventory.ClickType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * How often a viewer can click the items of a menu. Configured in the {@code click_throttle} section of a menu:
+ * <pre>
+ * click_throttle:
+ *   # Milliseconds in which clicks are ignored after a click ran its actions
+ *   delay: 75
+ *   # Milliseconds in which clicks are ignored after a click of a type, handled or not
+ *   click_types:
+ *     shift_left: 200
+ *   # Token bucket: up to 'burst' clicks at once, refilled at 'clicks_per_second'. Disabled when burst is 0
+ *   burst: 0
+ *   clicks_per_second: 0
+ * </pre>
+ */
+public class ClickThrottleOptions {
+
+    public static final long DEFAULT_DELAY = 75;
+    // Shift clicking an item sends the click twice
+    public static final long DEFAULT_SHIFT_LEFT_DELAY = 200;
+    public static final ClickThrottleOptions DEFAULT = builder().build();
+
+    private final long delayNanos;
+    private final long[] clickTypeDelayNanos;
+    private final int burst;
+    private final double clicksPerSecond;
+
+    private ClickThrottleOptions(final @NotNull ClickThrottleOptionsBuilder builder) {
+        this.delayNanos = builder.delay * 1_000_000L;
+        this.clickTypeDelayNanos = new long[ClickType.values().length];
+        for (final Map.Entry<ClickType, Long> entry : builder.clickTypeDelays.entrySet()) {
+            this.clickTypeDelayNanos[entry.getKey().ordinal()] = entry.getValue() * 1_000_000L;
+        }
+        this.burst = builder.burst;
+        this.clicksPerSecond = builder.clicksPerSecond;
+    }
+
+    public static @NotNull ClickThrottleOptionsBuilder builder() {
+        return new ClickThrottleOptionsBuilder();
+    }
+
+    /**
+     * @return the nanoseconds in which clicks are ignored after a click ran its actions
+     */
+    public long delayNanos() {
+        return delayNanos;
+    }
+
+    /**
+     * @param clickType the type of the click
+     * @return the nanoseconds in which clicks are ignored after a click of the type, 0 if there is no delay
+     */
+    public long delayNanos(final @NotNull ClickType clickType) {
+        return clickTypeDelayNanos[clickType.ordinal()];
+    }
+
+    /**
+     * @return the size of the token bucket, 0 if clicks are not limited by a bucket
+     */
+    public int burst() {
+        return burst;
+    }
+
+    public double clicksPerSecond() {
+        return clicksPerSecond;
+    }
+
+    public boolean hasBucket() {
+        return burst > 0;
+    }
+
+    public static class ClickThrottleOptionsBuilder {
+
+        private long delay = DEFAULT_DELAY;
+        private final Map<ClickType, Long> clickTypeDelays = new EnumMap<>(ClickType.class);
+        private int burst = 0;
+        private double clicksPerSecond = 0;
+
+        private ClickThrottleOptionsBuilder() {
+            this.clickTypeDelays.put(ClickType.SHIFT_LEFT, DEFAULT_SHIFT_LEFT_DELAY);
+        }
+
+        public ClickThrottleOptionsBuilder delay(final long delay) {
+            this.delay = Math.max(0, delay);
+            return this;
+        }
+
+        public ClickThrottleOptionsBuilder clickTypeDelay(final @NotNull ClickType clickType, final long delay) {
+            this.clickTypeDelays.put(clickType, Math.max(0, delay));
+            return this;
+        }
+
+        public ClickThrottleOptionsBuilder burst(final int burst) {
+            this.burst = Math.max(0, burst);
+            return this;
+        }
+
+        public ClickThrottleOptionsBuilder clicksPerSecond(final double clicksPerSecond) {
+            this.clicksPerSecond = Math.max(0, clicksPerSecond);
+            return this;
+        }
+
+        public ClickThrottleOptions build() {
+            return new ClickThrottleOptions(this);
+        }
+    }
+}
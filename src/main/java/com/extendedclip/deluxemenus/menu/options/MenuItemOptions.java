@@ -4,6 +4,7 @@ import com.extendedclip.deluxemenus.action.ClickHandler;
 import com.extendedclip.deluxemenus.config.DeluxeMenusConfig;
 import com.extendedclip.deluxemenus.menu.LoreAppendMode;
 import com.extendedclip.deluxemenus.requirement.RequirementList;
+import com.extendedclip.deluxemenus.utils.StringTemplate;
 import org.bukkit.DyeColor;
 import org.bukkit.block.banner.Pattern;
 import org.bukkit.enchantments.Enchantment;
@@ -12,6 +13,7 @@ import org.bukkit.potion.PotionEffect;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -22,26 +24,16 @@ import java.util.Set;
 
 public class MenuItemOptions {
 
-    public void setMaterial(String material) {
-        this.material = material;
-    }
-
-    public void setDisplayName(String displayName) {
-        this.displayName = displayName;
-    }
-
-    public void setLore(List<String> lore) {
-        this.lore = lore;
-    }
-
-    private String material;
+    private final String material;
     private final short data;
     private final int amount;
     private final String customModelData;
     private final String dynamicAmount;
     private final String lightLevel;
-    private String displayName;
-    private List<String> lore;
+    private final String displayName;
+    private final List<String> lore;
+    private final StringTemplate displayNameTemplate;
+    private final List<StringTemplate> loreTemplates;
     private final DyeColor baseColor;
     private HeadType headType;
     private final String placeholderData;
@@ -70,6 +62,7 @@ public class MenuItemOptions {
     private final int slot;
     private final int priority;
     private final boolean updatePlaceholders;
+    private final boolean staticItem;
 
     private final ClickHandler clickHandler;
     private final ClickHandler leftClickHandler;
@@ -95,6 +88,8 @@ public class MenuItemOptions {
         this.lightLevel = builder.lightLevel;
         this.displayName = builder.displayName;
         this.lore = builder.lore;
+        this.displayNameTemplate = compileDisplayName(builder.displayName);
+        this.loreTemplates = compileLore(builder.lore);
         this.hasLore = builder.hasLore;
         this.loreAppendMode = builder.loreAppendMode;
         this.baseColor = builder.baseColor;
@@ -117,6 +112,7 @@ public class MenuItemOptions {
         this.slot = builder.slot;
         this.priority = builder.priority;
         this.updatePlaceholders = builder.updatePlaceholders;
+        this.staticItem = builder.staticItem;
         this.clickHandler = builder.clickHandler;
         this.leftClickHandler = builder.leftClickHandler;
         this.rightClickHandler = builder.rightClickHandler;
@@ -168,6 +164,30 @@ public class MenuItemOptions {
         return lore;
     }
 
+    public @NotNull Optional<StringTemplate> displayNameTemplate() {
+        return Optional.ofNullable(displayNameTemplate);
+    }
+
+    public @NotNull List<StringTemplate> loreTemplates() {
+        return loreTemplates;
+    }
+
+    private static @Nullable StringTemplate compileDisplayName(final @Nullable String displayName) {
+        return displayName == null ? null : StringTemplate.compile(displayName, true);
+    }
+
+    private static @NotNull List<StringTemplate> compileLore(final @Nullable List<String> lore) {
+        if (lore == null || lore.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<StringTemplate> templates = new ArrayList<>(lore.size());
+        for (String line : lore) {
+            templates.add(StringTemplate.compile(line, true));
+        }
+        return templates;
+    }
+
     public @NotNull Optional<DyeColor> baseColor() {
         return Optional.ofNullable(baseColor);
     }
@@ -260,6 +280,14 @@ public class MenuItemOptions {
         return updatePlaceholders;
     }
 
+    /**
+     * @return true if the item does not depend on the viewer, its arguments or any placeholder, and renders the same
+     * for everyone
+     */
+    public boolean staticItem() {
+        return staticItem;
+    }
+
     public @NotNull Optional<ClickHandler> clickHandler() {
         return Optional.ofNullable(clickHandler);
     }
@@ -342,6 +370,7 @@ public class MenuItemOptions {
                 .slot(this.slot)
                 .priority(this.priority)
                 .updatePlaceholders(this.updatePlaceholders)
+                .staticItem(this.staticItem)
                 .clickHandler(this.clickHandler)
                 .leftClickHandler(this.leftClickHandler)
                 .rightClickHandler(this.rightClickHandler)
@@ -395,6 +424,7 @@ public class MenuItemOptions {
         private int slot;
         private int priority;
         private boolean updatePlaceholders;
+        private boolean staticItem;
 
         private ClickHandler clickHandler;
         private ClickHandler leftClickHandler;
@@ -581,6 +611,11 @@ public class MenuItemOptions {
             return this;
         }
 
+        public MenuItemOptionsBuilder staticItem(final boolean staticItem) {
+            this.staticItem = staticItem;
+            return this;
+        }
+
         public MenuItemOptionsBuilder hasLore(final boolean hasLore) {
             this.hasLore = hasLore;
             return this;
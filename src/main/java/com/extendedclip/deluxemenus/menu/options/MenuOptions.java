@@ -2,6 +2,7 @@ package com.extendedclip.deluxemenus.menu.options;
 
 import com.extendedclip.deluxemenus.action.ClickHandler;
 import com.extendedclip.deluxemenus.requirement.RequirementList;
+import com.extendedclip.deluxemenus.utils.StringTemplate;
 import org.bukkit.event.inventory.InventoryType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -13,6 +14,7 @@ public class MenuOptions {
 
     private final String name;
     private final String title;
+    private final StringTemplate titleTemplate;
     private final InventoryType type;
     private final int size;
     private final int updateInterval;
@@ -29,9 +31,12 @@ public class MenuOptions {
     private final ClickHandler openHandler;
     private final ClickHandler closeHandler;
 
+    private final ClickThrottleOptions clickThrottle;
+
     private MenuOptions(final @NotNull MenuOptionsBuilder builder) {
         this.name = builder.name;
         this.title = builder.title;
+        this.titleTemplate = StringTemplate.compile(builder.title, true);
         this.type = builder.type;
         this.size = builder.size;
         this.updateInterval = builder.updateInterval;
@@ -47,6 +52,8 @@ public class MenuOptions {
         this.openRequirements = builder.openRequirements;
         this.openHandler = builder.openHandler;
         this.closeHandler = builder.closeHandler;
+
+        this.clickThrottle = builder.clickThrottle;
     }
 
     public static @NotNull MenuOptionsBuilder builder(final @NotNull String name, final @NotNull String title) {
@@ -61,6 +68,10 @@ public class MenuOptions {
         return this.title;
     }
 
+    public @NotNull StringTemplate titleTemplate() {
+        return this.titleTemplate;
+    }
+
     public @NotNull InventoryType type() {
         return this.type;
     }
@@ -113,6 +124,10 @@ public class MenuOptions {
         return Optional.ofNullable(this.closeHandler);
     }
 
+    public @NotNull ClickThrottleOptions clickThrottle() {
+        return this.clickThrottle;
+    }
+
     public @NotNull MenuOptionsBuilder asBuilder() {
         return MenuOptions.builder(this.name, this.title)
                 .type(this.type)
@@ -127,7 +142,8 @@ public class MenuOptions {
                 .argumentsUsageMessage(this.argumentsUsageMessage)
                 .openRequirements(this.openRequirements)
                 .openHandler(this.openHandler)
-                .closeHandler(this.closeHandler);
+                .closeHandler(this.closeHandler)
+                .clickThrottle(this.clickThrottle);
     }
 
     public static class MenuOptionsBuilder {
@@ -150,6 +166,8 @@ public class MenuOptions {
         private ClickHandler openHandler;
         private ClickHandler closeHandler;
 
+        private ClickThrottleOptions clickThrottle = ClickThrottleOptions.DEFAULT;
+
         private MenuOptionsBuilder(final @NotNull String name, final @NotNull String title) {
             this.name = name;
             this.title = title;
@@ -230,6 +248,11 @@ public class MenuOptions {
             return this;
         }
 
+        public MenuOptionsBuilder clickThrottle(final @NotNull ClickThrottleOptions clickThrottle) {
+            this.clickThrottle = clickThrottle;
+            return this;
+        }
+
         public MenuOptions build() {
             return new MenuOptions(this);
         }
@@ -0,0 +1,93 @@
+package com.extendedclip.deluxemenus.requirement;
+
+import com.extendedclip.deluxemenus.DeluxeMenus;
+import com.extendedclip.deluxemenus.menu.MenuHolder;
+import com.extendedclip.deluxemenus.requirement.expression.Expression;
+import com.extendedclip.deluxemenus.requirement.expression.ExpressionParser;
+import com.extendedclip.deluxemenus.utils.DebugLevel;
+import java.util.logging.Level;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public class ExpressionRequirement extends Requirement {
+
+  private final Expression expression;
+  // Set for javascript requirements that were translated to an expression
+  private final boolean javascript;
+  private volatile JavascriptRequirement javascriptRequirement;
+
+  public ExpressionRequirement(@NotNull Expression expression) {
+    this(expression, false);
+  }
+
+  private ExpressionRequirement(@NotNull Expression expression, boolean javascript) {
+    this.expression = expression;
+    this.javascript = javascript;
+  }
+
+  /**
+   * Translate a javascript requirement to an expression requirement.
+   *
+   * @param source the javascript expression
+   * @return the translated requirement, or null if the expression cannot be translated
+   */
+  public static @Nullable ExpressionRequirement fromJavascript(@NotNull String source) {
+    final Expression expression = ExpressionParser.translateJavascript(source);
+    return expression == null ? null : new ExpressionRequirement(expression, true);
+  }
+
+  @Override
+  public boolean evaluate(MenuHolder holder) {
+    try {
+      final Object result;
+      if (javascript) {
+        final Object[] values = expression.bind(holder);
+        if (values == null) {
+          // A value that javascript would read differently, let javascript evaluate it
+          return getJavascriptRequirement().evaluate(holder);
+        }
+        result = expression.evaluate(holder, values);
+      } else {
+        result = expression.evaluate(holder);
+      }
+
+      if (!(result instanceof Boolean)) {
+        DeluxeMenus.debug(
+            DebugLevel.HIGHEST,
+            Level.WARNING,
+            "Requirement " + (javascript ? "javascript" : "expression") + " <" + expression.getSource()
+                + "> is invalid and does not return a boolean!"
+        );
+        return false;
+      }
+
+      return (boolean) result;
+
+    } catch (final RuntimeException exception) {
+      DeluxeMenus.debug(
+          DebugLevel.HIGHEST,
+          Level.WARNING,
+          "Error while evaluating requirement expression - " + expression.getSource()
+      );
+
+      DeluxeMenus.printStacktrace(
+          "Error while evaluating requirement expression - " + expression.getSource(),
+          exception
+      );
+      return false;
+    }
+  }
+
+  private @NotNull JavascriptRequirement getJavascriptRequirement() {
+    JavascriptRequirement requirement = javascriptRequirement;
+    if (requirement == null) {
+      requirement = new JavascriptRequirement(expression.getSource());
+      javascriptRequirement = requirement;
+    }
+    return requirement;
+  }
+
+  public boolean isTranslatedJavascript() {
+    return javascript;
+  }
+}
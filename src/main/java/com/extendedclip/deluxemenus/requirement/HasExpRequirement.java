@@ -1,6 +1,7 @@
 package com.extendedclip.deluxemenus.requirement;
 
 import com.extendedclip.deluxemenus.DeluxeMenus;
+import com.extendedclip.deluxemenus.cache.RequirementCache;
 import com.extendedclip.deluxemenus.menu.MenuHolder;
 import com.extendedclip.deluxemenus.utils.ExpUtils;
 
@@ -16,6 +17,16 @@ public class HasExpRequirement extends Requirement {
         this.level = level;
     }
 
+    @Override
+    public int getCost() {
+        return 2;
+    }
+
+    @Override
+    public RequirementCache.Dependency getDependency() {
+        return RequirementCache.Dependency.EXPERIENCE;
+    }
+
     @Override
     public boolean evaluate(MenuHolder holder) {
         int amount;
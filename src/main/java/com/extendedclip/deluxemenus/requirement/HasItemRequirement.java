@@ -1,15 +1,14 @@
 package com.extendedclip.deluxemenus.requirement;
 
 import com.extendedclip.deluxemenus.DeluxeMenus;
+import com.extendedclip.deluxemenus.cache.RequirementCache;
+import com.extendedclip.deluxemenus.menu.InventorySnapshot;
 import com.extendedclip.deluxemenus.menu.MenuHolder;
 import com.extendedclip.deluxemenus.requirement.wrappers.ItemWrapper;
 import com.extendedclip.deluxemenus.utils.StringUtils;
 import com.extendedclip.deluxemenus.utils.VersionHelper;
-import java.util.List;
 import java.util.stream.Collectors;
 import org.bukkit.Material;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
 
 public class HasItemRequirement extends Requirement {
 
@@ -21,6 +20,16 @@ public class HasItemRequirement extends Requirement {
     this.invert = invert;
   }
 
+  @Override
+  public int getCost() {
+    return 8;
+  }
+
+  @Override
+  public RequirementCache.Dependency getDependency() {
+    return RequirementCache.Dependency.INVENTORY;
+  }
+
   @Override
   public boolean evaluate(MenuHolder holder) {
     String materialName = holder.setPlaceholdersAndArguments(wrapper.getMaterial()).toUpperCase();
@@ -29,66 +38,51 @@ public class HasItemRequirement extends Requirement {
       return invert;
     }
 
-    if (material == Material.AIR) return invert == (holder.getViewer().getInventory().firstEmpty() == -1);
+    InventorySnapshot inventory = holder.getInventorySnapshot();
+    if (material == Material.AIR) return invert == !inventory.hasEmptySlot();
 
-    ItemStack[] armor = wrapper.checkArmor() ? holder.getViewer().getInventory().getArmorContents() : null;
-    ItemStack[] offHand = wrapper.checkOffhand() ? holder.getViewer().getInventory().getExtraContents() : null;
-    ItemStack[] inventory = holder.getViewer().getInventory().getStorageContents();
+    // The texts of the menu are resolved once, the stacks of the player are compared against them as they are
+    String name = wrapper.getName() == null ? null : StringUtils.color(holder.setPlaceholdersAndArguments(wrapper.getName()));
+    String loreList = wrapper.getLoreList() == null ? null : wrapper.getLoreList().stream()
+        .map(holder::setPlaceholdersAndArguments).map(StringUtils::color).collect(Collectors.joining("&&"));
+    String lore = wrapper.getLore() == null ? null : StringUtils.color(holder.setPlaceholdersAndArguments(wrapper.getLore()));
 
     int total = 0;
-    for (ItemStack itemToCheck: inventory) {
-      if (!isRequiredItem(itemToCheck, holder, material)) continue;
+    for (InventorySnapshot.Entry itemToCheck : inventory.getItems(material)) {
+      if (itemToCheck.getSection() == InventorySnapshot.Section.EXTRA && !wrapper.checkOffhand()) continue;
+      if (itemToCheck.getSection() == InventorySnapshot.Section.ARMOR && !wrapper.checkArmor()) continue;
+      if (!isRequiredItem(itemToCheck, name, loreList, lore)) continue;
       total += itemToCheck.getAmount();
     }
 
-    if (offHand != null) {
-      for (ItemStack itemToCheck: offHand) {
-        if (!isRequiredItem(itemToCheck, holder, material)) continue;
-        total += itemToCheck.getAmount();
-      }
-    }
-
-    if (armor != null) {
-      for (ItemStack itemToCheck: armor) {
-        if (!isRequiredItem(itemToCheck, holder, material)) continue;
-        total += itemToCheck.getAmount();
-      }
-    }
-
     return invert == (total < wrapper.getAmount());
   }
 
-  private boolean isRequiredItem(ItemStack itemToCheck, MenuHolder holder, Material material) {
-    if (itemToCheck == null || itemToCheck.getType() == Material.AIR) return false;
-    if (wrapper.getMaterial() != null && itemToCheck.getType() != material) return false;
+  private boolean isRequiredItem(InventorySnapshot.Entry itemToCheck, String name, String loreList, String lore) {
     if (wrapper.hasData() && itemToCheck.getDurability() != wrapper.getData()) return false;
 
-    ItemMeta metaToCheck = itemToCheck.getItemMeta();
+    InventorySnapshot.Fingerprint metaToCheck = itemToCheck.getFingerprint();
     if (wrapper.isStrict()) {
       if (metaToCheck != null) {
-        if (VersionHelper.IS_CUSTOM_MODEL_DATA) {
-          if (metaToCheck.hasCustomModelData()) return false;
-        }
-        if (metaToCheck.hasLore()) return false;
-        return !metaToCheck.hasDisplayName();
+        if (metaToCheck.getCustomModelData() != null) return false;
+        if (metaToCheck.getLore() != null) return false;
+        return metaToCheck.getDisplayName() == null;
       }
 
     } else {
-      if ((wrapper.getCustomData() != 0 || wrapper.getName() != null || wrapper.getLore() != null) && metaToCheck == null)
+      if ((wrapper.getCustomData() != 0 || name != null || lore != null) && metaToCheck == null)
         return false;
 
       if (wrapper.getCustomData() != 0) {
         if (VersionHelper.IS_CUSTOM_MODEL_DATA) {
-          if (!metaToCheck.hasCustomModelData()) return false;
+          if (metaToCheck.getCustomModelData() == null) return false;
           if (metaToCheck.getCustomModelData() != wrapper.getCustomData()) return false;
         }
       }
 
-      if (wrapper.getName() != null) {
-        if (!metaToCheck.hasDisplayName()) return false;
-
-        String name = StringUtils.color(holder.setPlaceholdersAndArguments(wrapper.getName()));
-        String nameToCheck = StringUtils.color(holder.setPlaceholdersAndArguments(metaToCheck.getDisplayName()));
+      if (name != null) {
+        String nameToCheck = metaToCheck.getDisplayName();
+        if (nameToCheck == null) return false;
 
         if (wrapper.checkNameContains() && wrapper.checkNameIgnoreCase()) {
           if (!org.apache.commons.lang3.StringUtils.containsIgnoreCase(nameToCheck, name)) return false;
@@ -104,33 +98,28 @@ public class HasItemRequirement extends Requirement {
         }
       }
 
-      if (wrapper.getLoreList() != null) {
-        List<String> loreX = metaToCheck.getLore();
-        if (loreX == null) return false;
-
-        String lore = wrapper.getLoreList().stream().map(holder::setPlaceholdersAndArguments).map(StringUtils::color).collect(Collectors.joining("&&"));
-        String loreToCheck = loreX.stream().map(holder::setPlaceholdersAndArguments).map(StringUtils::color).collect(Collectors.joining("&&"));
+      if (loreList != null) {
+        if (metaToCheck == null) return false;
+        String loreToCheck = metaToCheck.getLore();
+        if (loreToCheck == null) return false;
 
         if (wrapper.checkLoreContains() && wrapper.checkLoreIgnoreCase()) {
-          if (!org.apache.commons.lang3.StringUtils.containsIgnoreCase(loreToCheck, lore)) return false;
+          if (!org.apache.commons.lang3.StringUtils.containsIgnoreCase(loreToCheck, loreList)) return false;
         }
         else if (wrapper.checkLoreContains()) {
-          if (!loreToCheck.contains(lore)) return false;
+          if (!loreToCheck.contains(loreList)) return false;
         }
         else if (wrapper.checkLoreIgnoreCase()) {
-          if (!loreToCheck.equalsIgnoreCase(lore)) return false;
+          if (!loreToCheck.equalsIgnoreCase(loreList)) return false;
         }
-        else if (!loreToCheck.equals(lore)) {
+        else if (!loreToCheck.equals(loreList)) {
           return false;
         }
       }
 
-      if (wrapper.getLore() != null) {
-        List<String> loreX = metaToCheck.getLore();
-        if (loreX == null) return false;
-
-        String lore = StringUtils.color(holder.setPlaceholdersAndArguments(wrapper.getLore()));
-        String loreToCheck = loreX.stream().map(holder::setPlaceholdersAndArguments).map(StringUtils::color).collect(Collectors.joining("&&"));
+      if (lore != null) {
+        String loreToCheck = metaToCheck.getLore();
+        if (loreToCheck == null) return false;
 
         if (wrapper.checkLoreContains() && wrapper.checkLoreIgnoreCase()) {
           return org.apache.commons.lang3.StringUtils.containsIgnoreCase(loreToCheck, lore);
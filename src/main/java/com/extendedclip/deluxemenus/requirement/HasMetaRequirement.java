@@ -18,6 +18,11 @@ public class HasMetaRequirement extends Requirement {
     this.invert = invert;
   }
 
+  @Override
+  public int getCost() {
+    return 2;
+  }
+
   @Override
   public boolean evaluate(MenuHolder holder) {
     Player player = holder.getViewer();
@@ -15,6 +15,11 @@ public class HasMoneyRequirement extends Requirement {
     this.placeholder = placeholder;
   }
 
+  @Override
+  public int getCost() {
+    return 4;
+  }
+
   @Override
   public boolean evaluate(MenuHolder holder) {
     if (getInstance().getVault() == null) {
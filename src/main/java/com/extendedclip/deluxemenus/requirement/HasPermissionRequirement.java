@@ -1,5 +1,6 @@
 package com.extendedclip.deluxemenus.requirement;
 
+import com.extendedclip.deluxemenus.cache.RequirementCache;
 import com.extendedclip.deluxemenus.menu.MenuHolder;
 
 public class HasPermissionRequirement extends Requirement {
@@ -12,6 +13,16 @@ public class HasPermissionRequirement extends Requirement {
     this.invert = invert;
   }
 
+  @Override
+  public int getCost() {
+    return 1;
+  }
+
+  @Override
+  public RequirementCache.Dependency getDependency() {
+    return RequirementCache.Dependency.PERMISSIONS;
+  }
+
   @Override
   public boolean evaluate(MenuHolder holder) {
     String check = holder.setPlaceholdersAndArguments(perm);
@@ -1,5 +1,6 @@
 package com.extendedclip.deluxemenus.requirement;
 
+import com.extendedclip.deluxemenus.cache.RequirementCache;
 import com.extendedclip.deluxemenus.menu.MenuHolder;
 import org.bukkit.Location;
 
@@ -15,6 +16,16 @@ public class IsNearRequirement extends Requirement {
     this.invert = invert;
   }
 
+  @Override
+  public int getCost() {
+    return 2;
+  }
+
+  @Override
+  public RequirementCache.Dependency getDependency() {
+    return RequirementCache.Dependency.LOCATION;
+  }
+
   @Override
   public boolean evaluate(MenuHolder holder) {
     if (holder.getViewer() == null) {
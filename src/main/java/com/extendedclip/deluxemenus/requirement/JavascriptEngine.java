@@ -0,0 +1,387 @@
+package com.extendedclip.deluxemenus.requirement;
+
+import com.extendedclip.deluxemenus.DeluxeMenus;
+import com.extendedclip.deluxemenus.config.DeluxeMenusConfig;
+import com.extendedclip.deluxemenus.menu.MenuHolder;
+import com.extendedclip.deluxemenus.utils.StringTemplate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import javax.script.SimpleScriptContext;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.RegisteredServiceProvider;
+import org.bukkit.plugin.ServicePriority;
+import org.bukkit.plugin.ServicesManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.openjdk.nashorn.api.scripting.NashornScriptEngineFactory;
+
+/**
+ * Compiles and evaluates the scripts of {@link JavascriptRequirement}s.
+ * <br>
+ * A requirement expression is compiled once, with each of its placeholders and arguments replaced by a variable that
+ * is bound to the resolved value at evaluation time. Scripts are shared by every thread, while every evaluation runs
+ * in a global scope of its own, as it did with an engine per evaluation: variables and functions declared by a script
+ * are not seen by the next one, and view requirements evaluated off the main thread do not share a player variable.
+ * <br>
+ * When a resolved value cannot be bound without changing what the script means, the value is spliced into the source
+ * like before, and the resulting source is compiled and kept in a bounded cache.
+ */
+public final class JavascriptEngine {
+
+  private static final int MAX_SPLICED_SCRIPTS = 256;
+  private static final Pattern NUMBER = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?");
+  private static final String VARIABLE_PREFIX = "__dm";
+  private static final LongAdder COMPILATIONS = new LongAdder();
+  private static final LongAdder EVALUATIONS = new LongAdder();
+  private static final LongAdder SPLICED_EVALUATIONS = new LongAdder();
+  private static JavascriptEngine instance;
+
+  private final ScriptEngineManager manager;
+  private final ScriptEngine engine;
+  private final Map<String, CompiledScript> splicedScripts = new LinkedHashMap<>(64, 0.75F, true) {
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<String, CompiledScript> eldest) {
+      return size() > MAX_SPLICED_SCRIPTS;
+    }
+  };
+
+  private JavascriptEngine() {
+    final NashornScriptEngineFactory factory = new NashornScriptEngineFactory();
+    final ServicesManager services = Bukkit.getServer().getServicesManager();
+
+    if (services.isProvidedFor(ScriptEngineManager.class)) {
+      final RegisteredServiceProvider<ScriptEngineManager> provider = services.getRegistration(ScriptEngineManager.class);
+      manager = provider.getProvider();
+    } else {
+      manager = new ScriptEngineManager();
+      // Registering a service fires an event, and menus are compiled off the main thread
+      final Runnable register = () -> services.register(ScriptEngineManager.class, manager, DeluxeMenus.getInstance(), ServicePriority.Highest);
+      if (Bukkit.isPrimaryThread()) {
+        register.run();
+      } else {
+        Bukkit.getScheduler().runTask(DeluxeMenus.getInstance(), register);
+      }
+    }
+    manager.registerEngineName("JavaScript", factory);
+    manager.put("BukkitServer", Bukkit.getServer());
+
+    engine = factory.getScriptEngine();
+  }
+
+  public static synchronized @NotNull JavascriptEngine get() {
+    if (instance == null) {
+      instance = new JavascriptEngine();
+    }
+    return instance;
+  }
+
+  /**
+   * Compile a requirement expression.
+   *
+   * @param expression the expression, with its placeholders and arguments
+   * @return the compiled script
+   */
+  public @NotNull Script compile(final @NotNull String expression) {
+    final List<StringTemplate> tokens = new ArrayList<>();
+    final List<Boolean> quoted = new ArrayList<>();
+    final String source = bindTokens(expression, tokens, quoted);
+
+    CompiledScript compiled = null;
+    if (source != null) {
+      try {
+        compiled = compileSource(source);
+      } catch (final ScriptException ignored) {
+        // Reported when the spliced source fails to compile at evaluation time
+      }
+    }
+
+    final boolean[] quotedTokens = new boolean[quoted.size()];
+    for (int i = 0; i < quotedTokens.length; i++) {
+      quotedTokens[i] = quoted.get(i);
+    }
+    return new Script(expression, compiled, tokens.toArray(new StringTemplate[0]), quotedTokens);
+  }
+
+  /**
+   * Rewrite an expression so that its placeholders and arguments are read from variables.
+   *
+   * @return the rewritten source, or null if the expression can only be evaluated by splicing in the values
+   */
+  private static @Nullable String bindTokens(final @NotNull String expression, final @NotNull List<StringTemplate> tokens,
+                                             final @NotNull List<Boolean> quoted) {
+    if (expression.indexOf('`') != -1) {
+      return null;
+    }
+
+    // Token boundaries: placeholders first, then arguments in the text between them
+    final List<int[]> bounds = new ArrayList<>();
+    final Matcher matcher = DeluxeMenusConfig.PLACEHOLDER_PATTERN.matcher(expression);
+    int index = 0;
+    while (matcher.find()) {
+      if (!findArguments(expression, index, matcher.start(), bounds)) {
+        return null;
+      }
+      bounds.add(new int[]{matcher.start(), matcher.end()});
+      index = matcher.end();
+    }
+    if (!findArguments(expression, index, expression.length(), bounds)) {
+      return null;
+    }
+
+    if (bounds.isEmpty()) {
+      return expression;
+    }
+
+    final StringBuilder source = new StringBuilder(expression.length() + 32);
+    char quote = 0;
+    boolean literalHasTokens = false;
+    int literalStart = -1;
+    int next = 0;
+
+    for (int i = 0; i < expression.length(); i++) {
+      if (next < bounds.size() && bounds.get(next)[0] == i) {
+        final String token = expression.substring(i, bounds.get(next)[1]);
+        if (token.indexOf('\'') != -1 || token.indexOf('"') != -1 || token.indexOf('\\') != -1) {
+          return null;
+        }
+
+        final String variable = VARIABLE_PREFIX + tokens.size();
+        tokens.add(StringTemplate.compile(token, false));
+        quoted.add(quote != 0);
+
+        if (quote != 0) {
+          source.append(quote).append(" + ").append(variable).append(" + ").append(quote);
+          literalHasTokens = true;
+        } else {
+          final int end = bounds.get(next)[1];
+          if ((i > 0 && isIdentifierPart(expression.charAt(i - 1)))
+              || (end < expression.length() && isIdentifierPart(expression.charAt(end)))) {
+            return null;
+          }
+          source.append(variable);
+        }
+
+        i = bounds.get(next)[1] - 1;
+        next++;
+        continue;
+      }
+
+      final char c = expression.charAt(i);
+      if (quote != 0) {
+        if (c == '\\') {
+          if (i + 1 >= expression.length()) {
+            return null;
+          }
+          source.append(c).append(expression.charAt(++i));
+          continue;
+        }
+
+        if (c == quote) {
+          source.append(c);
+          if (literalHasTokens) {
+            // Group the literal so that the concatenation binds like the original string literal
+            source.insert(literalStart, '(').append(')');
+          }
+          quote = 0;
+          continue;
+        }
+
+        source.append(c);
+        continue;
+      }
+
+      // A regex literal, a comment or a division, which a placeholder can not be told apart in
+      if (c == '/') {
+        return null;
+      }
+
+      if (c == '\'' || c == '"') {
+        quote = c;
+        literalHasTokens = false;
+        literalStart = source.length();
+      }
+      source.append(c);
+    }
+
+    return quote == 0 ? source.toString() : null;
+  }
+
+  /**
+   * Find the {@code {argument}} tokens between two indexes of an expression.
+   *
+   * @return false if the text contains a stray placeholder character
+   */
+  private static boolean findArguments(final @NotNull String expression, final int from, final int to,
+                                       final @NotNull List<int[]> bounds) {
+    int index = from;
+    while (index < to) {
+      final int open = expression.indexOf('{', index);
+      final int close = open == -1 || open >= to ? -1 : expression.indexOf('}', open + 1);
+      if (close == -1 || close >= to) {
+        break;
+      }
+
+      final String name = expression.substring(open + 1, close);
+      if (name.isEmpty() || name.chars().anyMatch(c -> c == '{' || Character.isWhitespace(c))) {
+        index = open + 1;
+        continue;
+      }
+
+      bounds.add(new int[]{open, close + 1});
+      index = close + 1;
+    }
+
+    return expression.substring(from, to).indexOf('%') == -1;
+  }
+
+  private static boolean isIdentifierPart(final char c) {
+    return Character.isJavaIdentifierPart(c) || c == '.';
+  }
+
+  private @NotNull CompiledScript compileSource(final @NotNull String source) throws ScriptException {
+    synchronized (engine) {
+      final CompiledScript compiled = ((Compilable) engine).compile(source);
+      COMPILATIONS.increment();
+      return compiled;
+    }
+  }
+
+  private @Nullable Object eval(final @NotNull CompiledScript script, final @NotNull MenuHolder holder,
+                                final @Nullable Object[] values) throws ScriptException {
+    EVALUATIONS.increment();
+    final Bindings bindings;
+    synchronized (engine) {
+      bindings = engine.createBindings();
+    }
+
+    final ScriptContext context = new SimpleScriptContext();
+    context.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+    context.setBindings(manager.getBindings(), ScriptContext.GLOBAL_SCOPE);
+    bindings.put("BukkitPlayer", holder.getViewer());
+    if (values != null) {
+      for (int i = 0; i < values.length; i++) {
+        bindings.put(VARIABLE_PREFIX + i, values[i]);
+      }
+    }
+    return script.eval(context);
+  }
+
+  private @Nullable Object evalSpliced(final @NotNull String expression, final @NotNull MenuHolder holder)
+      throws ScriptException {
+    SPLICED_EVALUATIONS.increment();
+    final String source = holder.setPlaceholdersAndArguments(expression);
+
+    CompiledScript compiled;
+    synchronized (splicedScripts) {
+      compiled = splicedScripts.get(source);
+    }
+    if (compiled == null) {
+      compiled = compileSource(source);
+      synchronized (splicedScripts) {
+        splicedScripts.put(source, compiled);
+      }
+    }
+    return eval(compiled, holder, null);
+  }
+
+  /**
+   * @return the amount of scripts compiled since the plugin was enabled
+   */
+  public static long getCompilations() {
+    return COMPILATIONS.sum();
+  }
+
+  /**
+   * @return the amount of scripts evaluated since the plugin was enabled
+   */
+  public static long getEvaluations() {
+    return EVALUATIONS.sum();
+  }
+
+  /**
+   * @return the amount of evaluations that had to splice the resolved values into the source
+   */
+  public static long getSplicedEvaluations() {
+    return SPLICED_EVALUATIONS.sum();
+  }
+
+  /**
+   * A compiled requirement expression.
+   */
+  public final class Script {
+
+    private final String expression;
+    private final CompiledScript compiled;
+    private final StringTemplate[] tokens;
+    private final boolean[] quoted;
+
+    private Script(final @NotNull String expression, final @Nullable CompiledScript compiled,
+                   final @NotNull StringTemplate[] tokens, final boolean[] quoted) {
+      this.expression = expression;
+      this.compiled = compiled;
+      this.tokens = tokens;
+      this.quoted = quoted;
+    }
+
+    /**
+     * Evaluate the script for a holder.
+     *
+     * @param holder the holder to resolve the placeholders and arguments for
+     * @return the result of the script
+     * @throws ScriptException if the script fails to compile or to run
+     */
+    public @Nullable Object evaluate(final @NotNull MenuHolder holder) throws ScriptException {
+      if (compiled == null) {
+        return evalSpliced(expression, holder);
+      }
+
+      final Object[] values = new Object[tokens.length];
+      for (int i = 0; i < tokens.length; i++) {
+        final Object value = toValue(holder.render(tokens[i]), quoted[i]);
+        if (value == null) {
+          return evalSpliced(expression, holder);
+        }
+        values[i] = value;
+      }
+
+      return eval(compiled, holder, values);
+    }
+
+    /**
+     * Convert a resolved value to what the script would have read if the value was spliced into the source.
+     *
+     * @return the value, or null if it cannot be bound
+     */
+    private @Nullable Object toValue(final @NotNull String value, final boolean quoted) {
+      if (quoted) {
+        return value.indexOf('\'') == -1 && value.indexOf('"') == -1 && value.indexOf('\\') == -1
+            && value.indexOf('\n') == -1 && value.indexOf('\r') == -1 ? value : null;
+      }
+
+      if (value.equals("true") || value.equals("false")) {
+        return Boolean.valueOf(value);
+      }
+
+      return NUMBER.matcher(value).matches() ? Double.valueOf(value) : null;
+    }
+
+    /**
+     * @return true if the values of the expression are bound instead of spliced into its source
+     */
+    public boolean isCompiled() {
+      return compiled != null;
+    }
+  }
+}
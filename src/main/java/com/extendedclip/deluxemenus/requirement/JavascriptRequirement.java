@@ -4,45 +4,27 @@ import com.extendedclip.deluxemenus.DeluxeMenus;
 import com.extendedclip.deluxemenus.menu.MenuHolder;
 import com.extendedclip.deluxemenus.utils.DebugLevel;
 import java.util.logging.Level;
-import javax.script.ScriptEngineFactory;
-import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
-import org.bukkit.Bukkit;
-import org.bukkit.plugin.RegisteredServiceProvider;
-import org.bukkit.plugin.ServicePriority;
-import org.bukkit.plugin.ServicesManager;
-import org.openjdk.nashorn.api.scripting.NashornScriptEngineFactory;
 
 public class JavascriptRequirement extends Requirement {
 
-  private final ScriptEngineFactory factory = new NashornScriptEngineFactory();
-  private final ServicesManager manager = Bukkit.getServer().getServicesManager();
-  private static ScriptEngineManager engine;
   private final String expression;
+  private final JavascriptEngine.Script script;
 
   public JavascriptRequirement(String expression) {
     this.expression = expression;
-    if (engine == null) {
-      if (manager.isProvidedFor(ScriptEngineManager.class)) {
-        final RegisteredServiceProvider provider = manager.getRegistration(ScriptEngineManager.class);
-        engine = (ScriptEngineManager) provider.getProvider();
-      } else {
-        engine = new ScriptEngineManager();
-        manager.register(ScriptEngineManager.class, engine, DeluxeMenus.getInstance(), ServicePriority.Highest);
-      }
-      engine.registerEngineName("JavaScript", factory);
-      engine.put("BukkitServer", Bukkit.getServer());
-    }
+    this.script = JavascriptEngine.get().compile(expression);
   }
 
   @Override
-  public boolean evaluate(MenuHolder holder) {
+  public int getCost() {
+    return 10;
+  }
 
-    String exp = holder.setPlaceholdersAndArguments(expression);
+  @Override
+  public boolean evaluate(MenuHolder holder) {
     try {
-
-      engine.put("BukkitPlayer", holder.getViewer());
-      Object result = engine.getEngineByName("JavaScript").eval(exp);
+      Object result = script.evaluate(holder);
 
       if (!(result instanceof Boolean)) {
         DeluxeMenus.debug(
@@ -2,13 +2,17 @@ package com.extendedclip.deluxemenus.requirement;
 
 import com.extendedclip.deluxemenus.DeluxeMenus;
 import com.extendedclip.deluxemenus.action.ClickHandler;
+import com.extendedclip.deluxemenus.cache.RequirementCache;
 import com.extendedclip.deluxemenus.menu.MenuHolder;
 
 public abstract class Requirement {
 
+  private final RequirementStats stats = new RequirementStats();
   private ClickHandler successHandler;
   private ClickHandler denyHandler;
   private boolean optional;
+  private String path;
+  private long cacheTime;
 
   public Requirement() {
     this.setOptional(false);
@@ -20,6 +24,36 @@ public abstract class Requirement {
 
   public abstract boolean evaluate(MenuHolder holder);
 
+  /**
+   * The relative cost of evaluating this requirement, used by {@link RequirementList} to evaluate cheap requirements
+   * first. Checking a permission costs 1 and resolving and comparing a few placeholders costs 3.
+   *
+   * @return the relative cost of an evaluation
+   */
+  public int getCost() {
+    return 3;
+  }
+
+  /**
+   * What the result of this requirement depends on. A cached result is dropped as soon as it changes.
+   *
+   * @return the dependency of the result
+   */
+  public RequirementCache.Dependency getDependency() {
+    return RequirementCache.Dependency.NONE;
+  }
+
+  /**
+   * @return the time in milliseconds the result is cached for per viewer, 0 if it is not cached
+   */
+  public long getCacheTime() {
+    return cacheTime;
+  }
+
+  public void setCacheTime(long cacheTime) {
+    this.cacheTime = cacheTime;
+  }
+
   public ClickHandler getDenyHandler() {
     return denyHandler;
   }
@@ -51,4 +85,19 @@ public abstract class Requirement {
   public void setSuccessHandler(ClickHandler successHandler) {
     this.successHandler = successHandler;
   }
+
+  public RequirementStats getStats() {
+    return stats;
+  }
+
+  /**
+   * @return the config path this requirement was loaded from, or null if it was not loaded from a config
+   */
+  public String getPath() {
+    return path;
+  }
+
+  public void setPath(String path) {
+    this.path = path;
+  }
 }
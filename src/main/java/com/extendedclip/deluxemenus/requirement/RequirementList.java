@@ -2,23 +2,40 @@ package com.extendedclip.deluxemenus.requirement;
 
 import com.extendedclip.deluxemenus.action.ClickHandler;
 import com.extendedclip.deluxemenus.menu.MenuHolder;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 public class RequirementList {
 
+  // Optional requirements last, then the cheapest first
+  private static final Comparator<Requirement> EVALUATION_ORDER = Comparator
+      .comparing(Requirement::isOptional)
+      .thenComparingInt(Requirement::getCost);
+
   private List<Requirement> requirements;
   private ClickHandler denyHandler;
   private int minimumRequirements;
   private boolean stopAtSuccess;
+  private volatile Requirement[] evaluationOrder;
 
   public RequirementList(List<Requirement> requirements) {
     this.setRequirements(requirements);
   }
 
   public boolean evaluate(MenuHolder holder) {
+    final boolean profiling = RequirementStats.isProfiling();
     int successful = 0;
-    for (Requirement r : getRequirements()) {
-      if (r.evaluate(holder)) {
+    for (Requirement r : getEvaluationOrder()) {
+      final long start = profiling ? System.nanoTime() : 0;
+      final boolean passed = r.getCacheTime() > 0
+          ? r.getInstance().getRequirementCache().evaluate(r, holder)
+          : r.evaluate(holder);
+      if (profiling) {
+        r.getStats().record(System.nanoTime() - start, passed);
+      }
+
+      if (passed) {
         successful = successful + 1;
         if (r.getSuccessHandler() != null) {
           r.getSuccessHandler().onClick(holder);
@@ -38,12 +55,41 @@ public class RequirementList {
     return successful >= minimumRequirements;
   }
 
+  /**
+   * Get the order the requirements are evaluated in. Without stop_at_success, the result of the list does not depend
+   * on the order, so the requirements are sorted to fail as early and as cheaply as possible. Requirements with success
+   * or deny commands keep their position, and the requirements between them are only sorted among themselves, so the
+   * commands run exactly as they would in the configured order.
+   *
+   * @return the requirements in evaluation order
+   */
+  public Requirement[] getEvaluationOrder() {
+    Requirement[] order = evaluationOrder;
+    if (order == null) {
+      order = getRequirements().toArray(new Requirement[0]);
+
+      if (!stopAtSuccess) {
+        int start = 0;
+        for (int i = 0; i <= order.length; i++) {
+          if (i == order.length || order[i].getSuccessHandler() != null || order[i].getDenyHandler() != null) {
+            Arrays.sort(order, start, i, EVALUATION_ORDER);
+            start = i + 1;
+          }
+        }
+      }
+
+      evaluationOrder = order;
+    }
+    return order;
+  }
+
   public List<Requirement> getRequirements() {
     return requirements;
   }
 
   public void setRequirements(List<Requirement> requirements) {
     this.requirements = requirements;
+    this.evaluationOrder = null;
   }
 
   public ClickHandler getDenyHandler() {
@@ -68,5 +114,6 @@ public class RequirementList {
 
   public void setStopAtSuccess(boolean stop) {
     this.stopAtSuccess = stop;
+    this.evaluationOrder = null;
   }
 }
@@ -0,0 +1,54 @@
+package com.extendedclip.deluxemenus.requirement;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the evaluations of a {@link Requirement} and the time they took. Nothing is recorded unless profiling was
+ * started with /dm profile, so evaluations do not pay for the timing otherwise.
+ */
+public final class RequirementStats {
+
+  private static volatile boolean profiling = false;
+
+  private final LongAdder evaluations = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder nanos = new LongAdder();
+
+  public static boolean isProfiling() {
+    return profiling;
+  }
+
+  public static void setProfiling(final boolean profiling) {
+    RequirementStats.profiling = profiling;
+  }
+
+  public void record(final long nanos, final boolean passed) {
+    this.evaluations.increment();
+    this.nanos.add(nanos);
+    if (!passed) {
+      this.failures.increment();
+    }
+  }
+
+  public long getEvaluations() {
+    return evaluations.sum();
+  }
+
+  public long getFailures() {
+    return failures.sum();
+  }
+
+  /**
+   * @return the average time an evaluation took in nanoseconds, or 0 if the requirement was never evaluated
+   */
+  public long getAverageNanos() {
+    final long count = evaluations.sum();
+    return count == 0 ? 0 : nanos.sum() / count;
+  }
+
+  public void reset() {
+    evaluations.reset();
+    failures.reset();
+    nanos.reset();
+  }
+}
@@ -18,6 +18,9 @@ public enum RequirementType {
   JAVASCRIPT(Arrays.asList("javascript", "js"),
       "Evaluates a javascript expression that must return true or false",
       Collections.singletonList("expression")),
+  EXPRESSION(Arrays.asList("expression", "expr"),
+      "Evaluates an expression with numbers, strings, comparisons, boolean logic, ternaries and the min, max, contains and matches functions that must return true or false",
+      Collections.singletonList("expression")),
   HAS_ITEM(Arrays.asList("has item", "item", "hasitem"), "Checks if a player has a specific item",
       Arrays.asList("material", "amount", "data", "name", "lore")),
   DOES_NOT_HAVE_ITEM(Arrays.asList("!has item", "!item", "!hasitem", "does not have item"),
@@ -0,0 +1,419 @@
+package com.extendedclip.deluxemenus.requirement.expression;
+
+import com.extendedclip.deluxemenus.menu.MenuHolder;
+import com.extendedclip.deluxemenus.utils.StringTemplate;
+import java.math.BigDecimal;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A boolean expression compiled into a tree by {@link ExpressionParser}.
+ * <br>
+ * Values are numbers ({@link Double}), strings and booleans, and operators follow the javascript rules for them, so
+ * that a javascript requirement translated to an expression returns the same result. Placeholders and arguments are
+ * resolved when the expression first reads them, which means a short-circuited branch never resolves its own.
+ */
+public final class Expression {
+
+  private static final Pattern NUMBER = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?");
+  private static final Pattern DECIMAL = Pattern.compile("[+-]?([0-9]+\\.?[0-9]*|\\.[0-9]+)([eE][+-]?[0-9]+)?");
+  private static final Pattern HEX = Pattern.compile("0[xX][0-9a-fA-F]{1,15}");
+
+  private final String source;
+  private final Node root;
+  private final Token[] tokens;
+
+  Expression(final @NotNull String source, final @NotNull Node root, final @NotNull Token[] tokens) {
+    this.source = source;
+    this.root = root;
+    this.tokens = tokens;
+  }
+
+  /**
+   * Evaluate the expression for a holder. Placeholders outside of string literals are read as a number or a boolean
+   * when they look like one, and as a string otherwise.
+   *
+   * @param holder the holder to resolve the placeholders and arguments for
+   * @return the result of the expression
+   */
+  public @NotNull Object evaluate(final @NotNull MenuHolder holder) {
+    return root.evaluate(holder, new Object[tokens.length]);
+  }
+
+  /**
+   * Evaluate the expression with values resolved by {@link #bind(MenuHolder)}.
+   *
+   * @param holder the holder the values were resolved for
+   * @param values the resolved values
+   * @return the result of the expression
+   */
+  public @NotNull Object evaluate(final @NotNull MenuHolder holder, final @NotNull Object[] values) {
+    return root.evaluate(holder, values);
+  }
+
+  /**
+   * Resolve every placeholder and argument up front, the way a javascript expression has them spliced into its source.
+   *
+   * @param holder the holder to resolve the placeholders and arguments for
+   * @return the resolved values, or null if a value would not be read by javascript the same way, like a word outside
+   * of a string literal or a quote inside one
+   */
+  public @Nullable Object[] bind(final @NotNull MenuHolder holder) {
+    final Object[] values = new Object[tokens.length];
+    for (int i = 0; i < tokens.length; i++) {
+      final String value = holder.render(tokens[i].template);
+      if (tokens[i].quoted) {
+        if (value.indexOf('\'') != -1 || value.indexOf('"') != -1 || value.indexOf('\\') != -1
+            || value.indexOf('\n') != -1 || value.indexOf('\r') != -1) {
+          return null;
+        }
+        values[i] = value;
+        continue;
+      }
+
+      final Object converted = toValue(value);
+      if (converted instanceof String) {
+        return null;
+      }
+      values[i] = converted;
+    }
+    return values;
+  }
+
+  public @NotNull String getSource() {
+    return source;
+  }
+
+  private static @NotNull Object toValue(final @NotNull String value) {
+    if (value.equals("true")) {
+      return Boolean.TRUE;
+    }
+    if (value.equals("false")) {
+      return Boolean.FALSE;
+    }
+    return NUMBER.matcher(value).matches() ? (Object) Double.valueOf(value) : value;
+  }
+
+  static double toNumber(final @NotNull Object value) {
+    if (value instanceof Double) {
+      return (Double) value;
+    }
+    if (value instanceof Boolean) {
+      return (Boolean) value ? 1 : 0;
+    }
+
+    final String string = ((String) value).strip();
+    if (string.isEmpty()) {
+      return 0;
+    }
+    switch (string) {
+      case "Infinity":
+      case "+Infinity":
+        return Double.POSITIVE_INFINITY;
+      case "-Infinity":
+        return Double.NEGATIVE_INFINITY;
+      default:
+        if (HEX.matcher(string).matches()) {
+          return Long.parseLong(string.substring(2), 16);
+        }
+        return DECIMAL.matcher(string).matches() ? Double.parseDouble(string) : Double.NaN;
+    }
+  }
+
+  static boolean toBoolean(final @NotNull Object value) {
+    if (value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    if (value instanceof Double) {
+      final double number = (Double) value;
+      return number != 0 && !Double.isNaN(number);
+    }
+    return !((String) value).isEmpty();
+  }
+
+  static @NotNull String toString(final @NotNull Object value) {
+    if (!(value instanceof Double)) {
+      return value.toString();
+    }
+
+    final double number = (Double) value;
+    if (Double.isNaN(number)) {
+      return "NaN";
+    }
+    if (Double.isInfinite(number)) {
+      return number > 0 ? "Infinity" : "-Infinity";
+    }
+    if (number == (long) number && Math.abs(number) < 1e21) {
+      return Long.toString((long) number);
+    }
+
+    final double magnitude = Math.abs(number);
+    if (magnitude >= 1e-6 && magnitude < 1e21) {
+      return new BigDecimal(Double.toString(number)).stripTrailingZeros().toPlainString();
+    }
+
+    // Exponent notation, written like 1.5e-7 instead of 1.5E-7
+    final String java = Double.toString(number);
+    final int exponent = java.indexOf('E');
+    String mantissa = java.substring(0, exponent);
+    if (mantissa.endsWith(".0")) {
+      mantissa = mantissa.substring(0, mantissa.length() - 2);
+    }
+    final String power = java.substring(exponent + 1);
+    return mantissa + "e" + (power.startsWith("-") ? power : "+" + power);
+  }
+
+  static boolean strictEquals(final @NotNull Object left, final @NotNull Object right) {
+    if (left instanceof Double && right instanceof Double) {
+      return ((Double) left).doubleValue() == (Double) right;
+    }
+    return left.getClass() == right.getClass() && left.equals(right);
+  }
+
+  static boolean looseEquals(final @NotNull Object left, final @NotNull Object right) {
+    if (left.getClass() == right.getClass()) {
+      return strictEquals(left, right);
+    }
+    if (left instanceof String && right instanceof String) {
+      return left.equals(right);
+    }
+    return toNumber(left) == toNumber(right);
+  }
+
+  /**
+   * @return the result of comparing two values, or null if either is not a number
+   */
+  static @Nullable Integer compare(final @NotNull Object left, final @NotNull Object right) {
+    if (left instanceof String && right instanceof String) {
+      return ((String) left).compareTo((String) right);
+    }
+
+    final double l = toNumber(left);
+    final double r = toNumber(right);
+    if (Double.isNaN(l) || Double.isNaN(r)) {
+      return null;
+    }
+    return l < r ? -1 : (l > r ? 1 : 0);
+  }
+
+  abstract static class Node {
+
+    abstract @NotNull Object evaluate(@NotNull MenuHolder holder, @NotNull Object[] values);
+  }
+
+  static final class Constant extends Node {
+
+    private final Object value;
+
+    Constant(final @NotNull Object value) {
+      this.value = value;
+    }
+
+    Object value() {
+      return value;
+    }
+
+    @Override
+    @NotNull Object evaluate(final @NotNull MenuHolder holder, final @NotNull Object[] values) {
+      return value;
+    }
+  }
+
+  static final class Token extends Node {
+
+    private final int index;
+    private final StringTemplate template;
+    private final boolean quoted;
+
+    Token(final int index, final @NotNull String token, final boolean quoted) {
+      this.index = index;
+      this.template = StringTemplate.compile(token, false);
+      this.quoted = quoted;
+    }
+
+    @Override
+    @NotNull Object evaluate(final @NotNull MenuHolder holder, final @NotNull Object[] values) {
+      Object value = values[index];
+      if (value == null) {
+        final String resolved = holder.render(template);
+        value = quoted ? resolved : toValue(resolved);
+        values[index] = value;
+      }
+      return value;
+    }
+  }
+
+  /**
+   * A string literal that contains placeholders or arguments.
+   */
+  static final class Concat extends Node {
+
+    private final Node[] parts;
+
+    Concat(final @NotNull Node[] parts) {
+      this.parts = parts;
+    }
+
+    @Override
+    @NotNull Object evaluate(final @NotNull MenuHolder holder, final @NotNull Object[] values) {
+      final StringBuilder builder = new StringBuilder();
+      for (final Node part : parts) {
+        builder.append(Expression.toString(part.evaluate(holder, values)));
+      }
+      return builder.toString();
+    }
+  }
+
+  static final class Unary extends Node {
+
+    private final char operator;
+    private final Node operand;
+
+    Unary(final char operator, final @NotNull Node operand) {
+      this.operator = operator;
+      this.operand = operand;
+    }
+
+    @Override
+    @NotNull Object evaluate(final @NotNull MenuHolder holder, final @NotNull Object[] values) {
+      final Object value = operand.evaluate(holder, values);
+      switch (operator) {
+        case '!':
+          return !toBoolean(value);
+        case '-':
+          return -toNumber(value);
+        default:
+          return toNumber(value);
+      }
+    }
+  }
+
+  static final class Binary extends Node {
+
+    private final String operator;
+    private final Node left;
+    private final Node right;
+
+    Binary(final @NotNull String operator, final @NotNull Node left, final @NotNull Node right) {
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    @NotNull Object evaluate(final @NotNull MenuHolder holder, final @NotNull Object[] values) {
+      final Object l = left.evaluate(holder, values);
+
+      switch (operator) {
+        case "&&":
+          return toBoolean(l) ? right.evaluate(holder, values) : l;
+        case "||":
+          return toBoolean(l) ? l : right.evaluate(holder, values);
+        default:
+          break;
+      }
+
+      final Object r = right.evaluate(holder, values);
+      final Integer comparison;
+      switch (operator) {
+        case "==":
+          return looseEquals(l, r);
+        case "!=":
+          return !looseEquals(l, r);
+        case "===":
+          return strictEquals(l, r);
+        case "!==":
+          return !strictEquals(l, r);
+        case "<":
+          comparison = compare(l, r);
+          return comparison != null && comparison < 0;
+        case "<=":
+          comparison = compare(l, r);
+          return comparison != null && comparison <= 0;
+        case ">":
+          comparison = compare(l, r);
+          return comparison != null && comparison > 0;
+        case ">=":
+          comparison = compare(l, r);
+          return comparison != null && comparison >= 0;
+        case "+":
+          if (l instanceof String || r instanceof String) {
+            return Expression.toString(l) + Expression.toString(r);
+          }
+          return toNumber(l) + toNumber(r);
+        case "-":
+          return toNumber(l) - toNumber(r);
+        case "*":
+          return toNumber(l) * toNumber(r);
+        case "/":
+          return toNumber(l) / toNumber(r);
+        default:
+          return toNumber(l) % toNumber(r);
+      }
+    }
+  }
+
+  static final class Conditional extends Node {
+
+    private final Node condition;
+    private final Node whenTrue;
+    private final Node whenFalse;
+
+    Conditional(final @NotNull Node condition, final @NotNull Node whenTrue, final @NotNull Node whenFalse) {
+      this.condition = condition;
+      this.whenTrue = whenTrue;
+      this.whenFalse = whenFalse;
+    }
+
+    @Override
+    @NotNull Object evaluate(final @NotNull MenuHolder holder, final @NotNull Object[] values) {
+      return toBoolean(condition.evaluate(holder, values))
+          ? whenTrue.evaluate(holder, values)
+          : whenFalse.evaluate(holder, values);
+    }
+  }
+
+  static final class Call extends Node {
+
+    private final String function;
+    private final Node[] arguments;
+    // Compiled at load when the pattern of matches() is a constant
+    private final Pattern pattern;
+
+    Call(final @NotNull String function, final @NotNull Node[] arguments) {
+      this.function = function;
+      this.arguments = arguments;
+      this.pattern = function.equals("matches") && arguments[1] instanceof Constant
+          ? Pattern.compile(Expression.toString(((Constant) arguments[1]).value()))
+          : null;
+    }
+
+    @Override
+    @NotNull Object evaluate(final @NotNull MenuHolder holder, final @NotNull Object[] values) {
+      switch (function) {
+        case "min":
+        case "max":
+          final boolean min = function.equals("min");
+          double result = min ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+          for (final Node argument : arguments) {
+            final double number = toNumber(argument.evaluate(holder, values));
+            if (Double.isNaN(number)) {
+              return Double.NaN;
+            }
+            result = min ? Math.min(result, number) : Math.max(result, number);
+          }
+          return result;
+        case "contains":
+          return Expression.toString(arguments[0].evaluate(holder, values))
+              .contains(Expression.toString(arguments[1].evaluate(holder, values)));
+        default:
+          final String input = Expression.toString(arguments[0].evaluate(holder, values));
+          final Pattern compiled = pattern != null
+              ? pattern
+              : Pattern.compile(Expression.toString(arguments[1].evaluate(holder, values)));
+          return compiled.matcher(input).find();
+      }
+    }
+  }
+}
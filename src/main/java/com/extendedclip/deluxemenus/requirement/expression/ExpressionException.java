@@ -0,0 +1,18 @@
+package com.extendedclip.deluxemenus.requirement.expression;
+
+/**
+ * Thrown when an expression cannot be parsed.
+ */
+public class ExpressionException extends Exception {
+
+  private final int position;
+
+  public ExpressionException(String message, int position) {
+    super(message + " at position " + position);
+    this.position = position;
+  }
+
+  public int getPosition() {
+    return position;
+  }
+}
@@ -0,0 +1,421 @@
+package com.extendedclip.deluxemenus.requirement.expression;
+
+import com.extendedclip.deluxemenus.config.DeluxeMenusConfig;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.PatternSyntaxException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Parses boolean expressions like {@code %player_level% >= 10 && '%faction%' != 'none'} into an {@link Expression}.
+ * <br>
+ * Supported are numbers, strings in single or double quotes, {@code true} and {@code false}, placeholders and
+ * arguments, the arithmetic operators {@code + - * / %}, comparisons, {@code == != === !==}, {@code ! && ||},
+ * ternaries, parentheses and the functions {@code min}, {@code max}, {@code contains} and {@code matches}.
+ * <br>
+ * In javascript mode the parser only accepts expressions that javascript would read the same way, with
+ * {@code Math.min} and {@code Math.max} in place of the built-in functions, so that javascript requirements can be
+ * translated.
+ */
+public final class ExpressionParser {
+
+  // Binary operators from the lowest to the highest precedence, longer operators first within a level
+  private static final String[][] OPERATORS = {
+      {"||"},
+      {"&&"},
+      {"===", "!==", "==", "!="},
+      {"<=", ">=", "<", ">"},
+      {"+", "-"},
+      {"*", "/", "%"}
+  };
+
+  private final String source;
+  private final boolean javascript;
+  private final List<Expression.Token> tokens = new ArrayList<>();
+  private int position = 0;
+
+  private ExpressionParser(final @NotNull String source, final boolean javascript) {
+    this.source = source;
+    this.javascript = javascript;
+  }
+
+  /**
+   * Parse an expression.
+   *
+   * @param source the expression
+   * @return the parsed expression
+   * @throws ExpressionException if the expression is invalid
+   */
+  public static @NotNull Expression parse(final @NotNull String source) throws ExpressionException {
+    return new ExpressionParser(source, false).parse();
+  }
+
+  /**
+   * Translate a javascript expression.
+   *
+   * @param source the javascript expression
+   * @return the translated expression, or null if the expression uses anything outside of what can be translated
+   */
+  public static @Nullable Expression translateJavascript(final @NotNull String source) {
+    try {
+      return new ExpressionParser(source, true).parse();
+    } catch (final ExpressionException exception) {
+      return null;
+    }
+  }
+
+  private @NotNull Expression parse() throws ExpressionException {
+    final Expression.Node root = parseConditional();
+    skipWhitespace();
+    if (position < source.length()) {
+      throw error("Unexpected '" + source.charAt(position) + "'");
+    }
+    return new Expression(source, root, tokens.toArray(new Expression.Token[0]));
+  }
+
+  private @NotNull Expression.Node parseConditional() throws ExpressionException {
+    final Expression.Node condition = parseBinary(0);
+    if (!accept("?")) {
+      return condition;
+    }
+
+    final Expression.Node whenTrue = parseConditional();
+    expect(":");
+    final Expression.Node whenFalse = parseConditional();
+    return new Expression.Conditional(condition, whenTrue, whenFalse);
+  }
+
+  private @NotNull Expression.Node parseBinary(final int level) throws ExpressionException {
+    if (level == OPERATORS.length) {
+      return parseUnary();
+    }
+
+    Expression.Node left = parseBinary(level + 1);
+    String operator;
+    while ((operator = acceptOperator(OPERATORS[level])) != null) {
+      left = new Expression.Binary(operator, left, parseBinary(level + 1));
+    }
+    return left;
+  }
+
+  private @Nullable String acceptOperator(final @NotNull String[] operators) throws ExpressionException {
+    skipWhitespace();
+    for (final String operator : operators) {
+      if (!source.startsWith(operator, position)) {
+        continue;
+      }
+
+      final int end = position + operator.length();
+      if ((operator.equals("+") || operator.equals("-")) && source.startsWith(operator, end)) {
+        throw error("Unsupported operator '" + operator + operator + "'");
+      }
+      if (operator.equals("%") && javascript) {
+        // Splicing placeholders next to a modulo does not always read the same, leave it to javascript
+        throw error("Unsupported operator '%'");
+      }
+
+      position = end;
+      return operator;
+    }
+    return null;
+  }
+
+  private @NotNull Expression.Node parseUnary() throws ExpressionException {
+    skipWhitespace();
+    if (position < source.length()) {
+      final char c = source.charAt(position);
+      if (c == '!' && !source.startsWith("!=", position)) {
+        position++;
+        return new Expression.Unary('!', parseUnary());
+      }
+      if ((c == '-' || c == '+') && !source.startsWith(String.valueOf(c) + c, position)) {
+        position++;
+        return new Expression.Unary(c, parseUnary());
+      }
+    }
+    return parsePrimary();
+  }
+
+  private @NotNull Expression.Node parsePrimary() throws ExpressionException {
+    skipWhitespace();
+    if (position >= source.length()) {
+      throw error("Unexpected end of expression");
+    }
+
+    final char c = source.charAt(position);
+    if (c == '(') {
+      position++;
+      final Expression.Node inner = parseConditional();
+      expect(")");
+      return inner;
+    }
+
+    if (c == '\'' || c == '"') {
+      return parseString(c);
+    }
+
+    if (isDigit(c) || (c == '.' && position + 1 < source.length() && isDigit(source.charAt(position + 1)))) {
+      return parseNumber();
+    }
+
+    if (c == '%' || c == '{') {
+      final int end = findToken(source, position, source.length());
+      if (end == -1) {
+        throw error("Unexpected '" + c + "'");
+      }
+
+      final Expression.Token token = new Expression.Token(tokens.size(), source.substring(position, end), false);
+      tokens.add(token);
+      position = end;
+      if (javascript && position < source.length() && isIdentifierPart(source.charAt(position))) {
+        throw error("Placeholder followed by '" + source.charAt(position) + "'");
+      }
+      return token;
+    }
+
+    if (Character.isLetter(c) || c == '_' || c == '$') {
+      return parseIdentifier();
+    }
+
+    throw error("Unexpected '" + c + "'");
+  }
+
+  private @NotNull Expression.Node parseNumber() throws ExpressionException {
+    final int start = position;
+    while (position < source.length() && isDigit(source.charAt(position))) {
+      position++;
+    }
+    if (position < source.length() && source.charAt(position) == '.') {
+      position++;
+      while (position < source.length() && isDigit(source.charAt(position))) {
+        position++;
+      }
+    }
+    if (position < source.length() && (source.charAt(position) == 'e' || source.charAt(position) == 'E')) {
+      position++;
+      if (position < source.length() && (source.charAt(position) == '+' || source.charAt(position) == '-')) {
+        position++;
+      }
+      final int digits = position;
+      while (position < source.length() && isDigit(source.charAt(position))) {
+        position++;
+      }
+      if (digits == position) {
+        throw error("Invalid number");
+      }
+    }
+
+    final String number = source.substring(start, position);
+    if (javascript && number.length() > 1 && number.charAt(0) == '0' && isDigit(number.charAt(1))) {
+      // Octal in javascript
+      throw error("Unsupported number '" + number + "'");
+    }
+    if (position < source.length() && (isIdentifierPart(source.charAt(position))
+        || (javascript && source.charAt(position) == '%'))) {
+      throw error("Invalid number");
+    }
+    return new Expression.Constant(Double.parseDouble(number));
+  }
+
+  private @NotNull Expression.Node parseString(final char quote) throws ExpressionException {
+    final int start = position;
+    position++;
+    final StringBuilder text = new StringBuilder();
+    boolean escaped = false;
+
+    while (true) {
+      if (position >= source.length()) {
+        position = start;
+        throw error("Unterminated string");
+      }
+
+      final char c = source.charAt(position++);
+      if (c == quote) {
+        break;
+      }
+      if (c == '\n' || c == '\r') {
+        throw error("Unterminated string");
+      }
+      if (c != '\\') {
+        text.append(c);
+        continue;
+      }
+
+      if (position >= source.length()) {
+        throw error("Unterminated string");
+      }
+      escaped = true;
+      final char next = source.charAt(position++);
+      switch (next) {
+        case 'n':
+          text.append('\n');
+          break;
+        case 't':
+          text.append('\t');
+          break;
+        case 'r':
+          text.append('\r');
+          break;
+        case '\\':
+        case '\'':
+        case '"':
+          text.append(next);
+          break;
+        default:
+          throw error("Unsupported escape '\\" + next + "'");
+      }
+    }
+
+    return splitString(text.toString(), escaped);
+  }
+
+  /**
+   * Split the text of a string literal into constant text, placeholders and arguments.
+   */
+  private @NotNull Expression.Node splitString(final @NotNull String text, final boolean escaped)
+      throws ExpressionException {
+    final List<Expression.Node> parts = new ArrayList<>();
+    final StringBuilder literal = new StringBuilder();
+    int index = 0;
+
+    while (index < text.length()) {
+      final char c = text.charAt(index);
+      final int end = c == '%' || c == '{' ? findToken(text, index, text.length()) : -1;
+      if (end == -1) {
+        if (c == '%' && javascript) {
+          throw error("Unsupported '%' in string");
+        }
+        literal.append(c);
+        index++;
+        continue;
+      }
+
+      if (literal.length() > 0) {
+        parts.add(new Expression.Constant(literal.toString()));
+        literal.setLength(0);
+      }
+      final Expression.Token token = new Expression.Token(tokens.size(), text.substring(index, end), true);
+      tokens.add(token);
+      parts.add(token);
+      index = end;
+    }
+
+    if (parts.isEmpty()) {
+      return new Expression.Constant(literal.toString());
+    }
+    if (escaped && javascript) {
+      // The escapes would apply to the spliced values as well
+      throw error("Unsupported escape in string with placeholders");
+    }
+    if (literal.length() > 0) {
+      parts.add(new Expression.Constant(literal.toString()));
+    }
+    return new Expression.Concat(parts.toArray(new Expression.Node[0]));
+  }
+
+  private @NotNull Expression.Node parseIdentifier() throws ExpressionException {
+    final int start = position;
+    while (position < source.length() && (isIdentifierPart(source.charAt(position)) && source.charAt(position) != '.')) {
+      position++;
+    }
+    String name = source.substring(start, position);
+
+    if (name.equals("true") || name.equals("false")) {
+      return new Expression.Constant(Boolean.valueOf(name));
+    }
+
+    if (javascript) {
+      if (!name.equals("Math") || !accept(".")) {
+        throw error("Unsupported identifier '" + name + "'");
+      }
+      final int member = position;
+      while (position < source.length() && Character.isLetter(source.charAt(position))) {
+        position++;
+      }
+      name = source.substring(member, position);
+      if (!name.equals("min") && !name.equals("max")) {
+        throw error("Unsupported function 'Math." + name + "'");
+      }
+    } else if (!name.equals("min") && !name.equals("max") && !name.equals("contains") && !name.equals("matches")) {
+      throw error("Unknown function '" + name + "'");
+    }
+
+    expect("(");
+    final List<Expression.Node> arguments = new ArrayList<>();
+    if (!accept(")")) {
+      do {
+        arguments.add(parseConditional());
+      } while (accept(","));
+      expect(")");
+    }
+
+    final boolean binary = name.equals("contains") || name.equals("matches");
+    if (binary ? arguments.size() != 2 : arguments.isEmpty()) {
+      throw error("Wrong amount of arguments for '" + name + "'");
+    }
+
+    try {
+      return new Expression.Call(name, arguments.toArray(new Expression.Node[0]));
+    } catch (final PatternSyntaxException exception) {
+      throw error("Invalid pattern for 'matches': " + exception.getDescription());
+    }
+  }
+
+  /**
+   * Find the end of the placeholder or argument that starts at an index.
+   *
+   * @return the index after the token, or -1 if there is no token at the index
+   */
+  private static int findToken(final @NotNull String text, final int start, final int end) {
+    if (text.charAt(start) == '%') {
+      final Matcher matcher = DeluxeMenusConfig.PLACEHOLDER_PATTERN.matcher(text).region(start, end);
+      return matcher.lookingAt() ? matcher.end() : -1;
+    }
+
+    final int close = text.indexOf('}', start + 1);
+    if (close == -1 || close >= end || close == start + 1) {
+      return -1;
+    }
+    for (int i = start + 1; i < close; i++) {
+      if (text.charAt(i) == '{' || Character.isWhitespace(text.charAt(i))) {
+        return -1;
+      }
+    }
+    return close + 1;
+  }
+
+  private static boolean isDigit(final char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isIdentifierPart(final char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.';
+  }
+
+  private boolean accept(final @NotNull String expected) {
+    skipWhitespace();
+    if (source.startsWith(expected, position)) {
+      position += expected.length();
+      return true;
+    }
+    return false;
+  }
+
+  private void expect(final @NotNull String expected) throws ExpressionException {
+    if (!accept(expected)) {
+      throw error("Expected '" + expected + "'");
+    }
+  }
+
+  private void skipWhitespace() {
+    while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+      position++;
+    }
+  }
+
+  private @NotNull ExpressionException error(final @NotNull String message) {
+    return new ExpressionException(message, position);
+  }
+}
@@ -49,7 +49,29 @@ public enum Messages {
         .append(newline())
         .append(text(">", NamedTextColor.AQUA))
         .append(space().append(space()))
-        .append(text("/dm reload [menu]", NamedTextColor.WHITE))),
+        .append(text("/dm reload [menu | --dry-run | --full]", NamedTextColor.WHITE))
+        .append(newline())
+        .append(text(">", NamedTextColor.AQUA))
+        .append(space().append(space()))
+        .append(text("/dm stats [menu]", NamedTextColor.WHITE))
+        .append(newline())
+        .append(text(">", NamedTextColor.AQUA))
+        .append(space().append(space()))
+        .append(text("/dm cache stats", NamedTextColor.WHITE))
+        .append(newline())
+        .append(text(">", NamedTextColor.AQUA))
+        .append(space().append(space()))
+        .append(text("/dm profile <menu | --stop>", NamedTextColor.WHITE))),
+
+    STATS_HEADER(text("DeluxeMenus statistics:", NamedTextColor.AQUA)),
+    CACHE_STATS_HEADER(text("DeluxeMenus placeholder cache:", NamedTextColor.AQUA)),
+    PROFILE_HEADER(text("Requirements of menu <menu> in evaluation order:", NamedTextColor.AQUA)),
+    PROFILE_STARTED(text("Requirement profiling started. Use the menu, then run", NamedTextColor.GREEN)
+        .append(space())
+        .append(text("/dm profile <menu>", NamedTextColor.WHITE))
+        .append(space())
+        .append(text("again to see the timings.", NamedTextColor.GREEN))),
+    PROFILE_STOPPED(text("Requirement profiling stopped.", NamedTextColor.GREEN)),
 
     NO_PERMISSION(text("You don't have permission to do that!", NamedTextColor.RED)),
     NO_PERMISSION_PLAYER_ARGUMENT(text("You don't have permission to use the argument -p:<player>!", NamedTextColor.RED)),
@@ -63,6 +85,12 @@ public enum Messages {
     WRONG_USAGE_EXECUTE_COMMAND(WRONG_USAGE_BASE.message
         .append(text("/dm execute <player> <action>", NamedTextColor.GRAY))),
 
+    WRONG_USAGE_CACHE_COMMAND(WRONG_USAGE_BASE.message
+        .append(text("/dm cache stats", NamedTextColor.GRAY))),
+
+    WRONG_USAGE_PROFILE_COMMAND(WRONG_USAGE_BASE.message
+        .append(text("/dm profile <menu | --stop>", NamedTextColor.GRAY))),
+
     WRONG_USAGE_DUMP_COMMAND(WRONG_USAGE_BASE.message
         .append(text("/dm dump <menu-name/config>", NamedTextColor.GRAY))),
     WRONG_USAGE_OPEN_COMMAND(WRONG_USAGE_BASE.message
@@ -93,6 +121,9 @@ public enum Messages {
         .append(text("<player>"))),
 
     RELOAD_FAIL(text("Errors detected in config.yml. Failed to reload.", NamedTextColor.RED)),
+    RELOAD_IN_PROGRESS(text("A reload is already running, wait for it to finish.", NamedTextColor.RED)),
+    RELOAD_TIMINGS_HEADER(text("Slowest menus to load:", NamedTextColor.AQUA)),
+    RELOAD_DRY_RUN_HEADER(text("Nothing was reloaded. A reload would:", NamedTextColor.AQUA)),
     RELOAD_SUCCESS(PLUGIN_TITLE.message
         .append(space())
         .append(text("successfully reloaded!", NamedTextColor.GREEN))),
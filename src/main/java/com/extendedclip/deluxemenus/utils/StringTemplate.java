@@ -0,0 +1,297 @@
+package com.extendedclip.deluxemenus.utils;
+
+import com.extendedclip.deluxemenus.config.DeluxeMenusConfig;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+
+/**
+ * A config string compiled once into literal text, {@code {argument}} slots and {@code %placeholder%} slots, so that
+ * rendering it is a single append pass instead of a full rescan per argument, placeholder and color code.
+ * <br>
+ * When the template is colored, the color codes of the literal text are translated at compile time and only the values
+ * inserted at render time are translated. A template without any slot renders to a cached constant.
+ * <br>
+ * Strings whose literal text contains a stray {@code %} are not split, as the inserted values could complete a
+ * placeholder. They are rendered the same way as before, by replacing the arguments and placeholders of the whole
+ * string.
+ */
+public final class StringTemplate {
+
+    private static final byte LITERAL = 0;
+    private static final byte ARGUMENT = 1;
+    private static final byte PLACEHOLDER = 2;
+
+    private final String raw;
+    private final boolean color;
+    private final byte[] types;
+    private final String[] values;
+    // Set when the template has no slots
+    private final String constant;
+    // Set when the literal text cannot be split from the inserted values
+    private final boolean fallback;
+    // True when the literal text is already colored and only inserted values need to be colored
+    private final boolean literalsColored;
+
+    private StringTemplate(final @NotNull String raw, final boolean color, final @NotNull List<Byte> types,
+                           final @NotNull List<String> values, final boolean fallback) {
+        this.raw = raw;
+        this.color = color;
+        this.fallback = fallback;
+        this.types = new byte[types.size()];
+        for (int i = 0; i < this.types.length; i++) {
+            this.types[i] = types.get(i);
+        }
+
+        final boolean hasSlots = !fallback && types.stream().anyMatch(type -> type != LITERAL);
+        this.literalsColored = color && !fallback && canColorLiteralsSeparately(this.types, values);
+        this.values = values.toArray(new String[0]);
+
+        if (literalsColored) {
+            for (int i = 0; i < this.values.length; i++) {
+                if (this.types[i] == LITERAL) {
+                    this.values[i] = StringUtils.color(this.values[i]);
+                }
+            }
+        }
+
+        this.constant = hasSlots || fallback ? null : (color ? StringUtils.color(raw) : raw);
+    }
+
+    /**
+     * Compile a config string into a template.
+     *
+     * @param raw   the config string
+     * @param color whether the rendered string should have its color codes translated
+     * @return the compiled template
+     */
+    public static @NotNull StringTemplate compile(final @NotNull String raw, final boolean color) {
+        final List<Byte> types = new ArrayList<>();
+        final List<String> values = new ArrayList<>();
+        boolean fallback = false;
+
+        final Matcher matcher = DeluxeMenusConfig.PLACEHOLDER_PATTERN.matcher(raw);
+        int index = 0;
+        while (matcher.find()) {
+            fallback |= addLiteralAndArguments(raw.substring(index, matcher.start()), types, values);
+            types.add(PLACEHOLDER);
+            values.add(matcher.group());
+            index = matcher.end();
+        }
+        fallback |= addLiteralAndArguments(raw.substring(index), types, values);
+
+        return new StringTemplate(raw, color, types, values, fallback);
+    }
+
+    /**
+     * Split text without placeholders into literals and arguments.
+     *
+     * @return true if the literal text contains a stray placeholder character
+     */
+    private static boolean addLiteralAndArguments(final @NotNull String text, final @NotNull List<Byte> types,
+                                                  final @NotNull List<String> values) {
+        int index = 0;
+        while (index < text.length()) {
+            final int open = text.indexOf('{', index);
+            final int close = open == -1 ? -1 : text.indexOf('}', open + 1);
+            if (open == -1 || close == -1) {
+                break;
+            }
+
+            final String name = text.substring(open + 1, close);
+            if (name.isEmpty() || name.indexOf('{') != -1) {
+                // Not an argument, keep looking after the opening bracket
+                addLiteral(text.substring(index, open + 1), types, values);
+                index = open + 1;
+                continue;
+            }
+
+            addLiteral(text.substring(index, open), types, values);
+            types.add(ARGUMENT);
+            values.add(name);
+            index = close + 1;
+        }
+
+        addLiteral(text.substring(index), types, values);
+        return text.indexOf('%') != -1;
+    }
+
+    private static void addLiteral(final @NotNull String text, final @NotNull List<Byte> types,
+                                   final @NotNull List<String> values) {
+        if (text.isEmpty()) {
+            return;
+        }
+
+        final int last = types.size() - 1;
+        if (last >= 0 && types.get(last) == LITERAL) {
+            values.set(last, values.get(last) + text);
+            return;
+        }
+
+        types.add(LITERAL);
+        values.add(text);
+    }
+
+    /**
+     * A literal can only be colored on its own if it does not end in the middle of a color code that the next inserted
+     * value could complete, like {@code &} or {@code &#a1b}.
+     */
+    private static boolean canColorLiteralsSeparately(final byte[] types, final @NotNull List<String> values) {
+        for (int i = 0; i < types.length - 1; i++) {
+            if (types[i] != LITERAL) {
+                continue;
+            }
+
+            final String literal = values.get(i);
+            final int ampersand = literal.lastIndexOf('&');
+            if (ampersand != -1 && literal.length() - ampersand <= 7) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Render the template.
+     *
+     * @param player                           the player to parse placeholders for, or null to leave them as is
+     * @param arguments                        the menu arguments, may be null
+     * @param parsePlaceholdersInsideArguments whether placeholders inside argument values are parsed
+     * @param parsePlaceholdersAfterArguments  whether placeholders are parsed after the arguments are replaced
+     * @return the rendered string
+     */
+    public @NotNull String render(final @Nullable Player player, final @Nullable Map<String, String> arguments,
+                                  final boolean parsePlaceholdersInsideArguments,
+                                  final boolean parsePlaceholdersAfterArguments) {
+        return render(
+                player == null ? null : text -> StringUtils.replacePlaceholders(text, player),
+                arguments,
+                parsePlaceholdersInsideArguments,
+                parsePlaceholdersAfterArguments
+        );
+    }
+
+    /**
+     * Render the template, resolving placeholders through the given function.
+     *
+     * @param placeholders                     replaces the placeholders in a string, or null to leave them as is
+     * @param arguments                        the menu arguments, may be null
+     * @param parsePlaceholdersInsideArguments whether placeholders inside argument values are parsed
+     * @param parsePlaceholdersAfterArguments  whether placeholders are parsed after the arguments are replaced
+     * @return the rendered string
+     */
+    public @NotNull String render(final @Nullable UnaryOperator<String> placeholders,
+                                  final @Nullable Map<String, String> arguments,
+                                  final boolean parsePlaceholdersInsideArguments,
+                                  final boolean parsePlaceholdersAfterArguments) {
+        if (constant != null) {
+            return constant;
+        }
+
+        if (fallback) {
+            final String rendered;
+            if (placeholders == null) {
+                rendered = replaceArguments(raw, arguments, null, parsePlaceholdersInsideArguments);
+            } else if (parsePlaceholdersAfterArguments) {
+                rendered = placeholders.apply(replaceArguments(raw, arguments, placeholders, parsePlaceholdersInsideArguments));
+            } else {
+                rendered = replaceArguments(placeholders.apply(raw), arguments, placeholders, parsePlaceholdersInsideArguments);
+            }
+            return color ? StringUtils.color(rendered) : rendered;
+        }
+
+        final StringBuilder builder = new StringBuilder(raw.length() + 16);
+        for (int i = 0; i < types.length; i++) {
+            final String value = values[i];
+
+            switch (types[i]) {
+                case LITERAL:
+                    builder.append(value);
+                    break;
+                case ARGUMENT:
+                    final String argument = arguments == null ? null : arguments.get(value);
+                    if (argument == null) {
+                        builder.append('{').append(value).append('}');
+                        break;
+                    }
+
+                    String replacement = placeholders != null && parsePlaceholdersInsideArguments
+                            ? placeholders.apply(argument)
+                            : argument;
+                    if (placeholders != null && parsePlaceholdersAfterArguments && replacement.indexOf('%') != -1) {
+                        replacement = placeholders.apply(replacement);
+                    }
+                    appendValue(builder, replacement);
+                    break;
+                default:
+                    appendValue(builder, renderPlaceholder(value, placeholders, arguments,
+                            parsePlaceholdersInsideArguments, parsePlaceholdersAfterArguments));
+                    break;
+            }
+        }
+
+        return color && !literalsColored ? StringUtils.color(builder.toString()) : builder.toString();
+    }
+
+    private @NotNull String renderPlaceholder(final @NotNull String placeholder,
+                                              final @Nullable UnaryOperator<String> placeholders,
+                                              final @Nullable Map<String, String> arguments,
+                                              final boolean parsePlaceholdersInsideArguments,
+                                              final boolean parsePlaceholdersAfterArguments) {
+        if (placeholders == null) {
+            return replaceArguments(placeholder, arguments, null, parsePlaceholdersInsideArguments);
+        }
+
+        // Placeholders can take arguments as parameters, like %player_{target}%
+        if (parsePlaceholdersAfterArguments) {
+            return placeholders.apply(replaceArguments(placeholder, arguments, placeholders, parsePlaceholdersInsideArguments));
+        }
+
+        final String parsed = placeholders.apply(placeholder);
+        return parsed.indexOf('{') == -1
+                ? parsed
+                : replaceArguments(parsed, arguments, placeholders, parsePlaceholdersInsideArguments);
+    }
+
+    /**
+     * Same as {@link StringUtils#replaceArguments(String, Map, Player, boolean)}, resolving placeholders through the
+     * given function.
+     */
+    private static @NotNull String replaceArguments(@NotNull String input, final @Nullable Map<String, String> arguments,
+                                                    final @Nullable UnaryOperator<String> placeholders,
+                                                    final boolean parsePlaceholdersInsideArguments) {
+        if (arguments == null || arguments.isEmpty()) {
+            return input;
+        }
+
+        for (final Map.Entry<String, String> entry : arguments.entrySet()) {
+            final String value = placeholders != null && parsePlaceholdersInsideArguments
+                    ? placeholders.apply(entry.getValue())
+                    : entry.getValue();
+            input = input.replace("{" + entry.getKey() + "}", value);
+        }
+
+        return input;
+    }
+
+    private void appendValue(final @NotNull StringBuilder builder, final @NotNull String value) {
+        builder.append(literalsColored && value.indexOf('&') != -1 ? StringUtils.color(value) : value);
+    }
+
+    /**
+     * @return true if the template renders to the same string for everyone
+     */
+    public boolean isConstant() {
+        return constant != null;
+    }
+
+    public @NotNull String getRaw() {
+        return raw;
+    }
+}
@@ -1,19 +1,26 @@
 package com.extendedclip.deluxemenus.utils;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+import com.extendedclip.deluxemenus.DeluxeMenus;
+import com.extendedclip.deluxemenus.cache.PlaceholderCache;
+import com.extendedclip.deluxemenus.config.DeluxeMenusConfig;
 import me.clip.placeholderapi.PlaceholderAPI;
-import net.md_5.bungee.api.ChatColor;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public class StringUtils {
 
-    private final static Pattern HEX_PATTERN = Pattern
-            .compile("&(#[a-f0-9]{6})", Pattern.CASE_INSENSITIVE);
+    private final static char COLOR_CHAR = '\u00A7';
+    private final static String COLOR_CODES = "0123456789AaBbCcDdEeFfKkLlMmNnOoRrXx";
+    // Colored strings are cached up to this many entries, longer strings are not cached at all
+    private final static int COLOR_CACHE_SIZE = 2048;
+    private final static int COLOR_CACHE_MAX_LENGTH = 256;
+    private final static Map<String, String> COLOR_CACHE = new ConcurrentHashMap<>();
 
     /**
      * Translates the ampersand color codes like '&7' to their section symbol counterparts like '§7'.
@@ -25,17 +32,85 @@ public class StringUtils {
      */
     @NotNull
     public static String color(@NotNull String input) {
-        // Hex Support for 1.16.1+
-        Matcher m = HEX_PATTERN.matcher(input);
-        if (VersionHelper.IS_HEX_VERSION) {
-            while (m.find()) {
-                input = input.replace(m.group(), ChatColor.of(m.group(1)).toString());
+        if (input.indexOf('&') == -1) {
+            return input;
+        }
+
+        final boolean cacheable = input.length() <= COLOR_CACHE_MAX_LENGTH;
+        if (cacheable) {
+            final String cached = COLOR_CACHE.get(input);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        final String colored = translateColors(input);
+        if (cacheable) {
+            if (COLOR_CACHE.size() >= COLOR_CACHE_SIZE) {
+                COLOR_CACHE.clear();
             }
+            COLOR_CACHE.put(input, colored);
+        }
+        return colored;
+    }
+
+    /**
+     * Translates the color codes of a string in a single pass. Hex colors take precedence over the ampersand codes,
+     * the same way they did when they were translated before the rest of the string.
+     */
+    @NotNull
+    private static String translateColors(final @NotNull String input) {
+        final int length = input.length();
+        // A hex color grows from 8 to 14 characters, so the output is never twice as long as the input
+        final char[] output = new char[length * 2];
+        int size = 0;
+
+        for (int i = 0; i < length; i++) {
+            final char c = input.charAt(i);
+            if (c != '&' || i + 1 >= length) {
+                output[size++] = c;
+                continue;
+            }
+
+            final char next = input.charAt(i + 1);
+            if (next == '#' && VersionHelper.IS_HEX_VERSION && isHexColor(input, i + 2)) {
+                // &#rrggbb becomes §x§r§r§g§g§b§b, keeping the case of the digits
+                output[size++] = COLOR_CHAR;
+                output[size++] = 'x';
+                for (int digit = i + 2; digit < i + 8; digit++) {
+                    output[size++] = COLOR_CHAR;
+                    output[size++] = input.charAt(digit);
+                }
+                i += 7;
+                continue;
+            }
+
+            if (COLOR_CODES.indexOf(next) != -1) {
+                output[size++] = COLOR_CHAR;
+                output[size++] = Character.toLowerCase(next);
+                i++;
+                continue;
+            }
+
+            output[size++] = c;
         }
 
-        return ChatColor.translateAlternateColorCodes('&', input);
+        return new String(output, 0, size);
     }
 
+    private static boolean isHexColor(final @NotNull String input, final int start) {
+        if (start + 6 > input.length()) {
+            return false;
+        }
+
+        for (int i = start; i < start + 6; i++) {
+            final char c = input.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f') && (c < 'A' || c > 'F')) {
+                return false;
+            }
+        }
+        return true;
+    }
     @NotNull
     public static String replacePlaceholdersAndArguments(@NotNull String input, final @Nullable Map<String, String> arguments,
                                                          final @Nullable Player player,
@@ -54,9 +129,47 @@ public class StringUtils {
 
     @NotNull
     public static String replacePlaceholders(final @NotNull String input, final @NotNull Player player) {
+        final DeluxeMenus plugin = DeluxeMenus.getInstance();
+        final PlaceholderCache cache = plugin == null ? null : plugin.getPlaceholderCache();
+        if (cache != null && cache.isEnabled()) {
+            return cache.replacePlaceholders(input, player);
+        }
+
         return PlaceholderAPI.setPlaceholders(player, input);
     }
 
+    /**
+     * Replaces every placeholder of a string on its own through the given function, leaving the rest of the string as is.
+     *
+     * @param input    The string in which to replace the placeholders.
+     * @param resolver The function resolving a single placeholder like '%player_name%'.
+     * @return The string with its placeholders replaced, or null if the string contains stray '%' characters and has to
+     * be resolved as a whole.
+     */
+    @Nullable
+    public static String replaceEachPlaceholder(final @NotNull String input, final @NotNull UnaryOperator<String> resolver) {
+        final Matcher matcher = DeluxeMenusConfig.PLACEHOLDER_PATTERN.matcher(input);
+        final StringBuilder builder = new StringBuilder(input.length() + 16);
+        int index = 0;
+
+        while (matcher.find()) {
+            final String literal = input.substring(index, matcher.start());
+            if (literal.indexOf('%') != -1) {
+                return null;
+            }
+
+            builder.append(literal).append(resolver.apply(matcher.group()));
+            index = matcher.end();
+        }
+
+        final String tail = input.substring(index);
+        if (tail.indexOf('%') != -1) {
+            return null;
+        }
+
+        return builder.append(tail).toString();
+    }
+
     @NotNull
     public static String replaceArguments(@NotNull String input, final @Nullable Map<String, String> arguments,
                                           final @Nullable Player player, boolean parsePlaceholdersInsideArguments) {